@@ -0,0 +1,19 @@
+package study.querydsl.predicate;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 필드 값이 비어 있지 않으면 path 값이 이상인지 (goe) 조건을 만든다.
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.SOURCE)
+public @interface Goe {
+
+    /**
+     * Q 타입 변수명으로 시작하는 경로. 예) "member.username", "team.name"
+     */
+    String path();
+}
@@ -0,0 +1,21 @@
+package study.querydsl.predicate;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 검색 조건 DTO 에 붙이면 컴파일 시점에 {DTO 이름}Predicates 클래스가 같은 패키지에 생성된다.
+ * 생성된 클래스는 필드마다 BooleanExpression 을 만드는 static 메서드와
+ * where 절에 그대로 넘길 수 있는 of(condition) 을 가진다. 런타임 리플렉션은 쓰지 않는다.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+public @interface SearchCondition {
+
+    /**
+     * path 의 첫 segment 에 해당하는 Q 타입이 있는 패키지. 예) "study.querydsl.entity"
+     */
+    String entityPackage();
+}
@@ -0,0 +1,271 @@
+package study.querydsl.predicate.processor;
+
+import study.querydsl.predicate.Eq;
+import study.querydsl.predicate.Goe;
+import study.querydsl.predicate.Loe;
+import study.querydsl.predicate.SearchCondition;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link SearchCondition} 이 붙은 클래스마다 {이름}Predicates 를 생성한다.
+ *
+ * <pre>
+ * &#64;Eq(path = "member.username") private String username;
+ *   -> public static BooleanExpression usernameEq(String username) {
+ *          return hasText(username) ? QMember.member.username.eq(username) : null;
+ *      }
+ * </pre>
+ *
+ * 문자열은 공백만 있어도 비어 있는 것으로 보고, 나머지 참조 타입은 null 만 본다. primitive 는 항상 조건이 된다.
+ * conditionFields(condition) 은 값이 채워져서 조건이 된 필드 이름을 돌려준다.
+ */
+@SupportedAnnotationTypes("study.querydsl.predicate.SearchCondition")
+public class PredicateProcessor extends AbstractProcessor {
+
+    private static final String SUFFIX = "Predicates";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(SearchCondition.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@SearchCondition 은 클래스에만 붙일 수 있습니다.");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            List<Field> fields = fieldsOf(type);
+            if (fields == null) {
+                continue;
+            }
+            try {
+                write(type, fields);
+            } catch (IOException e) {
+                error(type, "Predicates 생성 실패: " + e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    private List<Field> fieldsOf(TypeElement type) {
+        String entityPackage = type.getAnnotation(SearchCondition.class).entityPackage();
+        List<Field> fields = new ArrayList<>();
+        boolean valid = true;
+
+        for (Element enclosed : type.getEnclosedElements()) {
+            if (enclosed.getKind() != ElementKind.FIELD || enclosed.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+            VariableElement variable = (VariableElement) enclosed;
+            List<Field> found = new ArrayList<>();
+            Eq eq = variable.getAnnotation(Eq.class);
+            if (eq != null) {
+                found.add(new Field(variable, Operation.EQ, eq.path()));
+            }
+            Goe goe = variable.getAnnotation(Goe.class);
+            if (goe != null) {
+                found.add(new Field(variable, Operation.GOE, goe.path()));
+            }
+            Loe loe = variable.getAnnotation(Loe.class);
+            if (loe != null) {
+                found.add(new Field(variable, Operation.LOE, loe.path()));
+            }
+
+            if (found.size() > 1) {
+                error(variable, "필드 하나에는 조건 어노테이션 하나만 붙일 수 있습니다.");
+                valid = false;
+                continue;
+            }
+            for (Field field : found) {
+                String problem = field.validate(entityPackage);
+                if (problem != null) {
+                    error(variable, problem);
+                    valid = false;
+                } else {
+                    fields.add(field);
+                }
+            }
+        }
+        return valid ? fields : null;
+    }
+
+    private void write(TypeElement type, List<Field> fields) throws IOException {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = packageElement.getQualifiedName().toString();
+        String conditionName = type.getSimpleName().toString();
+        String className = conditionName + SUFFIX;
+        String entityPackage = type.getAnnotation(SearchCondition.class).entityPackage();
+
+        StringBuilder src = new StringBuilder();
+        src.append("package ").append(packageName).append(";\n\n");
+        src.append("import com.querydsl.core.types.Predicate;\n");
+        src.append("import com.querydsl.core.types.dsl.BooleanExpression;\n\n");
+        src.append("import java.util.LinkedHashSet;\n");
+        src.append("import java.util.Set;\n\n");
+        src.append("/**\n");
+        src.append(" * ").append(conditionName).append(" 의 조건 어노테이션으로 생성된 코드. 직접 수정하지 않는다.\n");
+        src.append(" */\n");
+        src.append("public final class ").append(className).append(" {\n\n");
+        src.append("    private ").append(className).append("() {\n    }\n\n");
+
+        src.append("    /**\n");
+        src.append("     * where 절에 그대로 넘긴다. 값이 비어 있는 필드는 null 이 되어 무시된다.\n");
+        src.append("     */\n");
+        src.append("    public static Predicate[] of(").append(conditionName).append(" condition) {\n");
+        src.append("        return new Predicate[]{");
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            src.append(i == 0 ? "\n" : ",\n");
+            src.append("                ").append(field.methodName()).append("(condition.").append(field.getter()).append("())");
+        }
+        src.append("\n        };\n    }\n");
+
+        src.append("\n    /**\n");
+        src.append("     * 조건이 되는 (값이 채워진) 필드 이름. 조건을 직접 만드는 다른 검색 경로가 모르는 필드를 걸러낼 때 쓴다.\n");
+        src.append("     */\n");
+        src.append("    public static Set<String> conditionFields(").append(conditionName).append(" condition) {\n");
+        src.append("        Set<String> fields = new LinkedHashSet<>();\n");
+        for (Field field : fields) {
+            src.append("        if (").append(field.methodName()).append("(condition.").append(field.getter())
+                    .append("()) != null) {\n");
+            src.append("            fields.add(\"").append(field.name()).append("\");\n");
+            src.append("        }\n");
+        }
+        src.append("        return fields;\n    }\n");
+
+        for (Field field : fields) {
+            String name = field.name();
+            src.append("\n    public static BooleanExpression ").append(field.methodName())
+                    .append("(").append(field.typeName()).append(" ").append(name).append(") {\n");
+            String expression = field.qualifiedPath(entityPackage) + "." + field.operation.method + "(" + name + ")";
+            String guard = field.guard();
+            if (guard == null) {
+                src.append("        return ").append(expression).append(";\n");
+            } else {
+                src.append("        return ").append(guard).append(" ? ").append(expression).append(" : null;\n");
+            }
+            src.append("    }\n");
+        }
+
+        src.append("\n    private static boolean hasText(String value) {\n");
+        src.append("        if (value == null) {\n            return false;\n        }\n");
+        src.append("        for (int i = 0; i < value.length(); i++) {\n");
+        src.append("            if (!Character.isWhitespace(value.charAt(i))) {\n                return true;\n            }\n");
+        src.append("        }\n        return false;\n    }\n");
+        src.append("}\n");
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(packageName + "." + className, type);
+        try (Writer writer = file.openWriter()) {
+            writer.write(src.toString());
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private enum Operation {
+
+        EQ("Eq", "eq"),
+        GOE("Goe", "goe"),
+        LOE("Loe", "loe");
+
+        private final String suffix;
+        private final String method;
+
+        Operation(String suffix, String method) {
+            this.suffix = suffix;
+            this.method = method;
+        }
+    }
+
+    private static class Field {
+
+        private final VariableElement variable;
+        private final Operation operation;
+        private final String path;
+
+        Field(VariableElement variable, Operation operation, String path) {
+            this.variable = variable;
+            this.operation = operation;
+            this.path = path;
+        }
+
+        String validate(String entityPackage) {
+            if (entityPackage.isEmpty()) {
+                return "@SearchCondition 의 entityPackage 가 필요합니다.";
+            }
+            String[] segments = path.split("\\.");
+            if (segments.length < 2) {
+                return "path 는 \"member.username\" 처럼 Q 타입 변수명과 필드로 이뤄져야 합니다: " + path;
+            }
+            for (String segment : segments) {
+                if (!SourceVersion.isIdentifier(segment) || SourceVersion.isKeyword(segment)) {
+                    return "path 에 쓸 수 없는 이름이 있습니다: " + path;
+                }
+            }
+            return null;
+        }
+
+        String name() {
+            return variable.getSimpleName().toString();
+        }
+
+        //username + Eq = usernameEq, ageGoe 처럼 이미 접미사로 끝나면 그대로 쓴다.
+        String methodName() {
+            String name = name();
+            return name.endsWith(operation.suffix) ? name : name + operation.suffix;
+        }
+
+        String getter() {
+            String name = name();
+            String prefix = variable.asType().getKind() == TypeKind.BOOLEAN ? "is" : "get";
+            return prefix + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        }
+
+        String typeName() {
+            return variable.asType().toString();
+        }
+
+        //member.username -> study.querydsl.entity.QMember.member.username
+        String qualifiedPath(String entityPackage) {
+            String root = path.substring(0, path.indexOf('.'));
+            String qType = "Q" + Character.toUpperCase(root.charAt(0)) + root.substring(1);
+            return entityPackage + "." + qType + "." + path;
+        }
+
+        String guard() {
+            TypeMirror type = variable.asType();
+            if (type.getKind().isPrimitive()) {
+                return null;
+            }
+            return isString() ? "hasText(" + name() + ")" : name() + " != null";
+        }
+
+        private boolean isString() {
+            return "java.lang.String".equals(variable.asType().toString());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package study.querydsl.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.dataset.DatasetGenerator;
+import study.querydsl.dataset.DatasetSpec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 벤치마크마다 독립된 메모리 H2 로 애플리케이션 컨텍스트를 띄운다.
+ * 인자는 커맨드라인 인자로 넘겨서 application.yml(local 프로파일, TCP H2)보다 우선한다.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--spring.profiles.active=bench",
+                "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--logging.file.name=build/jmh/benchmark.log"));
+        for (String property : properties) {
+            args.add("--" + property);
+        }
+        return new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(new String[0]));
+    }
+
+    /**
+     * teams 개 팀에 members 명을 고르게 나눠 넣는다. 이전 결과와 비교할 수 있도록 seed 는 고정이다.
+     */
+    static void seed(ConfigurableApplicationContext context, int teams, int members) {
+        DatasetSpec spec = new DatasetSpec();
+        spec.setTeams(teams);
+        spec.setMembers(members);
+        spec.setTeamSkew(0);
+        spec.setNoTeamRatio(0);
+        spec.setUsernames(members);
+        spec.setUsernameSkew(0);
+        seed(context, spec);
+    }
+
+    //팀 크기가 치우친 데이터로 재려면 spec 을 직접 만든다.
+    static void seed(ConfigurableApplicationContext context, DatasetSpec spec) {
+        context.getBean(DatasetGenerator.class).generate(spec);
+    }
+}
@@ -0,0 +1,90 @@
+package study.querydsl.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import study.querydsl.controller.MemberRowsHttpMessageConverter;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * /v1/members 응답 한 페이지를 형식별로 직렬화하는 비용을 잰다. DB 없이 DTO 만 쓴다.
+ * 응답 크기는 setUp 에서 한 번 출력한다. (payload bytes)
+ * JSON 은 현재 기본 응답, *_GZIP 은 server.compression 이 켜졌을 때 Tomcat 이 하는 일과 같다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberSerializationBenchmark {
+
+    @Param({"JSON", "JSON_GZIP", "CBOR", "SMILE", "ROWS", "ROWS_GZIP"})
+    String format;
+
+    @Param({"1000"})
+    int rows;
+
+    List<MemberTeamDto> page;
+    ObjectMapper objectMapper;
+    ByteArrayOutputStream buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        page = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            long teamId = i % 10 + 1;
+            page.add(new MemberTeamDto((long) i + 1, "member" + i, i % 100, teamId, "team" + teamId));
+        }
+
+        if (format.startsWith("CBOR")) {
+            objectMapper = new ObjectMapper(new CBORFactory());
+        } else if (format.startsWith("SMILE")) {
+            //MemberCodecConfig 와 같은 설정
+            objectMapper = new ObjectMapper(new SmileFactory().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES));
+        } else {
+            objectMapper = new ObjectMapper();
+        }
+        buffer = new ByteArrayOutputStream(256 * 1024);
+
+        System.out.println();
+        System.out.println(format + " payload bytes: " + serialize());
+    }
+
+    @Benchmark
+    public int serialize() throws IOException {
+        buffer.reset();
+        boolean gzip = format.endsWith("_GZIP");
+        OutputStream out = gzip ? new GZIPOutputStream(buffer, 8192) : buffer;
+        if (format.startsWith("ROWS")) {
+            MemberRowsHttpMessageConverter.encode(page, out);
+        } else {
+            objectMapper.writeValue(out, page);
+        }
+        if (gzip) {
+            ((GZIPOutputStream) out).finish();
+        }
+        return buffer.size();
+    }
+}
@@ -0,0 +1,85 @@
+package study.querydsl.benchmark;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.jpa.QueryHints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 큰 엔티티 목록을 읽고 커밋하는 한 번의 트랜잭션 비용을 잰다.
+ * READ_WRITE 는 커밋 때 dirty checking 과 엔티티 스냅샷 비용이 든다.
+ * 메모리 차이는 -prof gc 의 gc.alloc.rate.norm 으로 본다. (./gradlew jmh -Pjmh.include="ReadOnlyTransactionBenchmark -prof gc")
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadOnlyTransactionBenchmark {
+
+    /**
+     * READ_WRITE: 기본 트랜잭션
+     * READ_ONLY_HINT: 읽기/쓰기 트랜잭션 안에서 org.hibernate.readOnly 힌트만 준다. (바깥 트랜잭션에 합류한 경우)
+     * READ_ONLY: @Transactional(readOnly = true) 와 같다. (FlushMode.MANUAL + defaultReadOnly)
+     */
+    @Param({"READ_WRITE", "READ_ONLY_HINT", "READ_ONLY"})
+    String mode;
+
+    @Param({"10000"})
+    int members;
+
+    ConfigurableApplicationContext context;
+    JPAQueryFactory queryFactory;
+    TransactionTemplate tx;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                "decorator.datasource.p6spy.enable-logging=false",
+                "monitoring.sql-logging.mode=OFF",
+                "logging.level.org.hibernate.type=info");
+        BenchmarkApplication.seed(context, 10, members);
+
+        queryFactory = context.getBean(JPAQueryFactory.class);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        tx.setReadOnly("READ_ONLY".equals(mode));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int loadAll() {
+        boolean hint = !"READ_WRITE".equals(mode);
+        return tx.execute(status -> {
+            List<Member> result = queryFactory
+                    .selectFrom(member)
+                    .setHint(QueryHints.HINT_READONLY, hint)
+                    .fetch();
+            return result.size();
+        });
+    }
+}
@@ -0,0 +1,74 @@
+package study.querydsl.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL 로깅 방식별로 MemberRepositoryImpl.search 한 번의 비용을 잰다.
+ * 할당량까지 보려면 -prof gc 를 붙인다. (./gradlew jmh -Pjmh.include="SqlLoggingBenchmark -prof gc")
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqlLoggingBenchmark {
+
+    /**
+     * VERBOSE: 기존 설정(p6spy starter 로그 + format_sql + org.hibernate.type=debug)
+     * ALL/SAMPLED/SLOW: SampledSqlLogger 만 사용
+     * OFF: SQL 로그 없음
+     */
+    @Param({"VERBOSE", "ALL", "SAMPLED", "SLOW", "OFF"})
+    String loggingMode;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    MemberSearchCondition condition;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean verbose = "VERBOSE".equals(loggingMode);
+        context = BenchmarkApplication.start(
+                "decorator.datasource.p6spy.enable-logging=" + verbose,
+                "spring.jpa.properties.hibernate.format_sql=" + verbose,
+                "logging.level.org.hibernate.type=" + (verbose ? "debug" : "info"),
+                "monitoring.sql-logging.mode=" + (verbose ? "OFF" : loggingMode),
+                "monitoring.sql-logging.sample-rate=100",
+                "monitoring.sql-logging.slow-threshold=200ms");
+        BenchmarkApplication.seed(context, 10, 1000);
+
+        memberRepository = context.getBean(MemberRepository.class);
+        condition = new MemberSearchCondition();
+        condition.setTeamName("team3");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> search() {
+        return memberRepository.search(condition);
+    }
+}
@@ -0,0 +1,48 @@
+package study.querydsl.loadtest;
+
+import java.util.Random;
+
+/**
+ * MemberSearchCondition 에 어떤 필드를 채울지. 값은 시드 데이터 분포 안에서 고른다.
+ */
+enum ConditionShape {
+
+    EMPTY {
+        @Override
+        void appendTo(StringBuilder query, Random random, LoadTestConfig config) {
+        }
+    },
+    USERNAME {
+        @Override
+        void appendTo(StringBuilder query, Random random, LoadTestConfig config) {
+            param(query, "username", LoadTestSeeder.username(random.nextInt(config.getUsernames())));
+        }
+    },
+    TEAM {
+        @Override
+        void appendTo(StringBuilder query, Random random, LoadTestConfig config) {
+            param(query, "teamName", LoadTestSeeder.teamName(random.nextInt(config.getTeams())));
+        }
+    },
+    AGE_RANGE {
+        @Override
+        void appendTo(StringBuilder query, Random random, LoadTestConfig config) {
+            int from = LoadTestSeeder.MIN_AGE + random.nextInt(LoadTestSeeder.MAX_AGE - LoadTestSeeder.MIN_AGE);
+            param(query, "ageGoe", String.valueOf(from));
+            param(query, "ageLoe", String.valueOf(from + random.nextInt(10)));
+        }
+    },
+    TEAM_AGE {
+        @Override
+        void appendTo(StringBuilder query, Random random, LoadTestConfig config) {
+            TEAM.appendTo(query, random, config);
+            AGE_RANGE.appendTo(query, random, config);
+        }
+    };
+
+    abstract void appendTo(StringBuilder query, Random random, LoadTestConfig config);
+
+    static void param(StringBuilder query, String name, String value) {
+        query.append(query.length() == 0 ? '?' : '&').append(name).append('=').append(value);
+    }
+}
@@ -0,0 +1,24 @@
+package study.querydsl.loadtest;
+
+enum Endpoint {
+
+    V1("/v1/members", false),
+    V2("/v2/members", true),
+    V3("/", true);
+
+    private final String path;
+    private final boolean paged;
+
+    Endpoint(String path, boolean paged) {
+        this.path = path;
+        this.paged = paged;
+    }
+
+    String path() {
+        return path;
+    }
+
+    boolean paged() {
+        return paged;
+    }
+}
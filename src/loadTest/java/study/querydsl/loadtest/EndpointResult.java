@@ -0,0 +1,57 @@
+package study.querydsl.loadtest;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+class EndpointResult {
+
+    private final Endpoint endpoint;
+    private final long[] latencyNanos;
+    private final int errors;
+    private final long elapsedNanos;
+    private final long statements;
+
+    EndpointResult(Endpoint endpoint, long[] latencyNanos, int errors, long elapsedNanos, long statements) {
+        this.endpoint = endpoint;
+        this.latencyNanos = latencyNanos.clone();
+        Arrays.sort(this.latencyNanos);
+        this.errors = errors;
+        this.elapsedNanos = elapsedNanos;
+        this.statements = statements;
+    }
+
+    double percentileMillis(double percentile) {
+        if (latencyNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * latencyNanos.length) - 1;
+        return latencyNanos[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    double throughput() {
+        return latencyNanos.length / (elapsedNanos / 1_000_000_000.0);
+    }
+
+    double queriesPerRequest() {
+        return latencyNanos.length == 0 ? 0 : (double) statements / latencyNanos.length;
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("endpoint", endpoint.name());
+        map.put("path", endpoint.path());
+        map.put("requests", latencyNanos.length);
+        map.put("errors", errors);
+        map.put("elapsedMillis", elapsedNanos / 1_000_000);
+        map.put("throughputPerSecond", throughput());
+        map.put("p50Millis", percentileMillis(50));
+        map.put("p99Millis", percentileMillis(99));
+        map.put("maxMillis", percentileMillis(100));
+        map.put("queriesPerRequest", queriesPerRequest());
+        return map;
+    }
+}
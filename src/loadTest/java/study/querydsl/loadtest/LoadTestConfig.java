@@ -0,0 +1,90 @@
+package study.querydsl.loadtest;
+
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * -Dloadtest.xxx 시스템 프로퍼티로 설정한다. 비율은 "이름=가중치,이름=가중치" 형식이다.
+ */
+@Getter
+class LoadTestConfig {
+
+    private final long seed;
+    private final int threads;
+    private final int requests;
+    private final int warmup;
+    private final int teams;
+    private final int members;
+    private final int usernames;
+    //팀 크기, username 빈도의 Zipf 지수. 0 이면 고르게 나뉜다.
+    private final double teamSkew;
+    private final double usernameSkew;
+    private final int pageSize;
+    private final int maxPage;
+    //페이지 깊이는 기하분포를 따른다. 값이 클수록 첫 페이지에 몰린다.
+    private final double firstPageBias;
+    private final Map<Endpoint, Double> endpoints;
+    private final Map<ConditionShape, Double> shapes;
+    private final Path out;
+
+    private LoadTestConfig() {
+        seed = Long.getLong("loadtest.seed", 42L);
+        threads = Integer.getInteger("loadtest.threads", 16);
+        requests = Integer.getInteger("loadtest.requests", 10_000);
+        warmup = Integer.getInteger("loadtest.warmup", 1_000);
+        teams = Integer.getInteger("loadtest.teams", 100);
+        members = Integer.getInteger("loadtest.members", 100_000);
+        usernames = Integer.getInteger("loadtest.usernames", 20_000);
+        teamSkew = Double.parseDouble(System.getProperty("loadtest.teamSkew", "1.0"));
+        usernameSkew = Double.parseDouble(System.getProperty("loadtest.usernameSkew", "0.8"));
+        pageSize = Integer.getInteger("loadtest.pageSize", 20);
+        maxPage = Integer.getInteger("loadtest.maxPage", 50);
+        firstPageBias = Double.parseDouble(System.getProperty("loadtest.firstPageBias", "0.5"));
+        endpoints = weights(Endpoint.class, System.getProperty("loadtest.endpoints", "V1=4,V2=3,V3=3"));
+        shapes = weights(ConditionShape.class, System.getProperty("loadtest.shapes",
+                "EMPTY=1,USERNAME=3,TEAM=3,AGE_RANGE=2,TEAM_AGE=1"));
+        out = Paths.get(System.getProperty("loadtest.out", "build/loadtest"));
+    }
+
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig();
+    }
+
+    int requestsFor(Endpoint endpoint) {
+        double total = endpoints.values().stream().mapToDouble(Double::doubleValue).sum();
+        return (int) Math.round(requests * endpoints.getOrDefault(endpoint, 0.0) / total);
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("seed", seed);
+        map.put("threads", threads);
+        map.put("requests", requests);
+        map.put("warmup", warmup);
+        map.put("teams", teams);
+        map.put("members", members);
+        map.put("usernames", usernames);
+        map.put("teamSkew", teamSkew);
+        map.put("usernameSkew", usernameSkew);
+        map.put("pageSize", pageSize);
+        map.put("maxPage", maxPage);
+        map.put("firstPageBias", firstPageBias);
+        map.put("endpoints", endpoints);
+        map.put("shapes", shapes);
+        return map;
+    }
+
+    private static <E extends Enum<E>> Map<E, Double> weights(Class<E> type, String spec) {
+        Map<E, Double> weights = new EnumMap<>(type);
+        for (String entry : spec.split(",")) {
+            String[] pair = entry.trim().split("=");
+            weights.put(Enum.valueOf(type, pair[0].trim()), Double.parseDouble(pair[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,72 @@
+package study.querydsl.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 실행마다 loadtest-yyyyMMdd-HHmmss.json 을 남기고, 실행 간 비교용으로 loadtest-summary.csv 에 한 줄씩 추가한다.
+ */
+class LoadTestReport {
+
+    private static final String CSV_HEADER =
+            "startedAt,endpoint,requests,errors,throughputPerSecond,p50Millis,p99Millis,maxMillis,queriesPerRequest";
+
+    private final LoadTestConfig config;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final List<EndpointResult> results = new ArrayList<>();
+
+    LoadTestReport(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    void add(EndpointResult result) {
+        results.add(result);
+        System.out.printf(Locale.ROOT, "%-3s %7d req  %8.1f req/s  p50 %7.2f ms  p99 %7.2f ms  %5.2f queries/req  %d errors%n",
+                result.getEndpoint(), result.getLatencyNanos().length, result.throughput(),
+                result.percentileMillis(50), result.percentileMillis(99), result.queriesPerRequest(), result.getErrors());
+    }
+
+    void write() throws IOException {
+        Path out = config.getOut();
+        Files.createDirectories(out);
+        String stamp = startedAt.format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("startedAt", startedAt.toString());
+        json.put("config", config.toMap());
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        for (EndpointResult result : results) {
+            endpoints.add(result.toMap());
+        }
+        json.put("endpoints", endpoints);
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(out.resolve("loadtest-" + stamp + ".json").toFile(), json);
+
+        Path csv = out.resolve("loadtest-summary.csv");
+        StringBuilder lines = new StringBuilder();
+        if (!Files.exists(csv)) {
+            lines.append(CSV_HEADER).append('\n');
+        }
+        for (EndpointResult r : results) {
+            lines.append(String.format(Locale.ROOT, "%s,%s,%d,%d,%.1f,%.3f,%.3f,%.3f,%.2f%n",
+                    startedAt, r.getEndpoint(), r.getLatencyNanos().length, r.getErrors(), r.throughput(),
+                    r.percentileMillis(50), r.percentileMillis(99), r.percentileMillis(100), r.queriesPerRequest()));
+        }
+        Files.write(csv, lines.toString().getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
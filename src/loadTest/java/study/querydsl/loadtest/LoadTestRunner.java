@@ -0,0 +1,146 @@
+package study.querydsl.loadtest;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+import study.querydsl.dataset.DatasetGenerator;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 애플리케이션을 loadtest 프로파일(메모리 H2)로 띄우고 시드 데이터를 넣은 뒤
+ * 엔드포인트별로 설정한 비율만큼 요청을 보낸다.
+ * 요청당 쿼리 수는 엔드포인트 구간마다 Hibernate 통계를 초기화해서 구한다.
+ */
+public class LoadTestRunner {
+
+    private final LoadTestConfig config;
+    private final TrafficMix mix;
+    private final String baseUrl;
+
+    LoadTestRunner(LoadTestConfig config, int port) {
+        this.config = config;
+        this.mix = new TrafficMix(config);
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+
+        //application.yml 의 local 프로파일(InitMember, TCP H2)을 대신한다.
+        System.setProperty("spring.profiles.active", "loadtest");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .properties("server.port=0")
+                .run(args);
+        try {
+            EntityManagerFactory emf = context.getBean(EntityManagerFactory.class);
+            new LoadTestSeeder(context.getBean(DatasetGenerator.class)).seed(config);
+            Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadTestRunner runner = new LoadTestRunner(config, port);
+            LoadTestReport report = new LoadTestReport(config);
+            for (Endpoint endpoint : Endpoint.values()) {
+                int requests = config.requestsFor(endpoint);
+                if (requests == 0) {
+                    continue;
+                }
+                runner.drive(endpoint, config.getWarmup());
+                statistics.clear();
+                report.add(runner.drive(endpoint, requests)
+                        .withStatements(statistics.getPrepareStatementCount()));
+            }
+            report.write();
+        } finally {
+            context.close();
+        }
+    }
+
+    Measurement drive(Endpoint endpoint, int requests) throws Exception {
+        //요청 목록을 시드 하나로 먼저 만들어 둔다. 스레드는 순서대로 다음 칸을 가져가므로
+        //스레드 수나 스케줄링과 상관없이 실행마다 같은 요청 집합이 같은 순서로 나간다.
+        Random random = new Random(config.getSeed() * 31 + endpoint.ordinal() * 1009);
+        List<String> uris = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            uris.add(mix.nextUri(endpoint, random));
+        }
+
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(config.getThreads());
+        List<Future<?>> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < config.getThreads(); t++) {
+            workers.add(executor.submit(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < requests) {
+                    String uri = uris.get(i);
+                    long begin = System.nanoTime();
+                    if (!get(uri)) {
+                        errors.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - begin;
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        return new Measurement(endpoint, latencies, errors.get(), elapsed);
+    }
+
+    private boolean get(String uri) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + uri).openConnection();
+        connection.setRequestProperty("Accept", "application/json");
+        int status = connection.getResponseCode();
+        //keep-alive 로 커넥션을 재사용하려면 본문을 끝까지 읽어야 한다.
+        try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+            if (body != null) {
+                byte[] buffer = new byte[8192];
+                while (body.read(buffer) != -1) {
+                    //drain
+                }
+            }
+        }
+        return status < 400;
+    }
+
+    static class Measurement {
+
+        private final Endpoint endpoint;
+        private final long[] latencies;
+        private final int errors;
+        private final long elapsedNanos;
+
+        Measurement(Endpoint endpoint, long[] latencies, int errors, long elapsedNanos) {
+            this.endpoint = endpoint;
+            this.latencies = latencies;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        EndpointResult withStatements(long statements) {
+            return new EndpointResult(endpoint, latencies, errors, elapsedNanos, statements);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package study.querydsl.loadtest;
+
+import study.querydsl.dataset.DatasetGenerator;
+import study.querydsl.dataset.DatasetSpec;
+
+/**
+ * DatasetGenerator 로 팀 크기와 이름이 치우친 데이터를 넣는다. 같은 loadtest.seed 면 같은 데이터다.
+ */
+class LoadTestSeeder {
+
+    static final int MIN_AGE = 10;
+    static final int MAX_AGE = 70;
+
+    private final DatasetGenerator generator;
+
+    LoadTestSeeder(DatasetGenerator generator) {
+        this.generator = generator;
+    }
+
+    static String username(int i) {
+        return DatasetGenerator.username(i);
+    }
+
+    static String teamName(int i) {
+        return DatasetGenerator.teamName(i);
+    }
+
+    void seed(LoadTestConfig config) {
+        DatasetSpec spec = new DatasetSpec();
+        spec.setSeed(config.getSeed());
+        spec.setTeams(config.getTeams());
+        spec.setMembers(config.getMembers());
+        spec.setTeamSkew(config.getTeamSkew());
+        spec.setUsernames(config.getUsernames());
+        spec.setUsernameSkew(config.getUsernameSkew());
+        spec.setMinAge(MIN_AGE);
+        spec.setMaxAge(MAX_AGE);
+        spec.setBatchSize(5000);
+        generator.generate(spec);
+    }
+}
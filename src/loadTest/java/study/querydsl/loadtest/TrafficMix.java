@@ -0,0 +1,52 @@
+package study.querydsl.loadtest;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 설정한 비율대로 조건 모양과 페이지 깊이를 골라 요청 URL 을 만든다.
+ */
+class TrafficMix {
+
+    private final LoadTestConfig config;
+    private final ConditionShape[] shapes;
+    private final double[] cumulative;
+
+    TrafficMix(LoadTestConfig config) {
+        this.config = config;
+        this.shapes = config.getShapes().keySet().toArray(new ConditionShape[0]);
+        this.cumulative = new double[shapes.length];
+        double sum = 0;
+        int i = 0;
+        for (Map.Entry<ConditionShape, Double> entry : config.getShapes().entrySet()) {
+            sum += entry.getValue();
+            cumulative[i++] = sum;
+        }
+    }
+
+    String nextUri(Endpoint endpoint, Random random) {
+        StringBuilder query = new StringBuilder();
+        nextShape(random).appendTo(query, random, config);
+        if (endpoint.paged()) {
+            ConditionShape.param(query, "page", String.valueOf(nextPage(random)));
+            ConditionShape.param(query, "size", String.valueOf(config.getPageSize()));
+        }
+        return endpoint.path() + query;
+    }
+
+    private ConditionShape nextShape(Random random) {
+        double r = random.nextDouble() * cumulative[cumulative.length - 1];
+        for (int i = 0; i < cumulative.length; i++) {
+            if (r < cumulative[i]) {
+                return shapes[i];
+            }
+        }
+        return shapes[shapes.length - 1];
+    }
+
+    private int nextPage(Random random) {
+        double p = config.getFirstPageBias();
+        int page = (int) Math.floor(Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+        return Math.min(page, config.getMaxPage());
+    }
+}
@@ -3,9 +3,8 @@ package study.querydsl;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
-import study.querydsl.entity.Member;
-import study.querydsl.entity.Team;
+import study.querydsl.dataset.DatasetGenerator;
+import study.querydsl.dataset.DatasetSpec;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
@@ -25,24 +24,23 @@ public class InitMember {
 
 
     @Component
+    @RequiredArgsConstructor
     static class InitMemberService {
 
+        private final DatasetGenerator datasetGenerator;
+        private final DatasetSpec datasetSpec;
+
         @PersistenceContext
         EntityManager em;
 
-        @Transactional
+        //이미 데이터가 있으면(ddl-auto 가 create 가 아닌 환경에서 재시작) 다시 넣지 않는다.
+        //양은 member.dataset 으로 정한다. 팀 크기와 이름이 치우쳐 있어야 로컬에서도 실제와 비슷한 실행 계획을 본다.
         public void init() {
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
-
-            for(int i = 0 ; i < 100; i++ ){
-                Team selectTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member"+1, i, selectTeam));
+            Long members = em.createQuery("select count(m) from Member m", Long.class).getSingleResult();
+            if (members > 0) {
+                return;
             }
-
-
+            datasetGenerator.generate(datasetSpec);
         }
     }
 
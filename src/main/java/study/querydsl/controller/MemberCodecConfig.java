@@ -0,0 +1,33 @@
+package study.querydsl.controller;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * 회원 목록 응답의 압축 형식. Accept 헤더로 고른다.
+ * application/json (기본), application/cbor, application/x-jackson-smile, application/x-member-rows
+ * CBOR, Smile 컨버터는 jar 가 있으면 Spring MVC 가 기본으로 등록한다.
+ */
+@Configuration
+public class MemberCodecConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter instanceof MappingJackson2SmileHttpMessageConverter) {
+                //같은 팀 이름이 row 마다 반복되므로 값도 back-reference 로 줄인다. (필드 이름은 기본으로 공유된다)
+                SmileFactory factory = (SmileFactory) ((MappingJackson2SmileHttpMessageConverter) converter)
+                        .getObjectMapper().getFactory();
+                factory.enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES);
+            }
+        }
+        //앞에 두면 Accept: */* 요청에 이 형식이 먼저 골라진다.
+        converters.add(new MemberRowsHttpMessageConverter());
+    }
+}
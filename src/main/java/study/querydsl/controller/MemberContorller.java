@@ -1,37 +1,112 @@
 package study.querydsl.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import study.querydsl.dto.MemberChangeBatch;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberChangeLogRepository;
+import study.querydsl.repository.MemberField;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.routing.AdaptiveMemberSearch;
+import study.querydsl.support.DataVersion;
+import study.querydsl.tenant.TenantContext;
+import study.querydsl.tenant.TenantInterceptor;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberContorller {
 
+    private static final int MAX_CHANGE_BATCH = 5000;
+
+    //매번 재검증한다. 응답이 tenant 마다 다르므로 공유 캐시에는 두지 않는다.
+    //Accept 에 따라 JSON, CBOR, Smile, x-member-rows 로 나간다. (MemberCodecConfig)
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final MemberChangeLogRepository memberChangeLogRepository;
+    private final DataVersion dataVersion;
+    private final ObjectProvider<AdaptiveMemberSearch> adaptiveMemberSearch;
 
+    //member.search.adaptive.enabled 면 검색 모양별로 가장 빠른 경로(JPA, native, 스냅샷, 캐시)로 보낸다.
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition){
-        return memberJpaRepository.search(condition);
+    public ResponseEntity<List<MemberTeamDto>> searchMemberV1(MemberSearchCondition condition, WebRequest request){
+        AdaptiveMemberSearch adaptive = adaptiveMemberSearch.getIfAvailable();
+        return conditional(request, () -> adaptive != null
+                ? adaptive.search(condition)
+                : memberJpaRepository.search(condition));
     }
 
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable ) {
-        return memberRepository.searchPageSimple(condition, pageable);
+    public ResponseEntity<Page<MemberTeamDto>> searchMemberV2(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        return conditional(request, () -> memberRepository.searchPageSimple(condition, pageable));
+    }
+
+    //fields=memberId,username 처럼 필요한 필드만 고른다. 고른 컬럼만 select 되고 팀 필드가 없으면 team 조인도 빠진다.
+    @GetMapping(value = "/v1/members", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> searchMemberFieldsV1(MemberSearchCondition condition,
+                                                                         @RequestParam String fields,
+                                                                         WebRequest request) {
+        List<MemberField> selected = MemberField.parse(fields);
+        return conditional(request, () -> memberRepository.searchFields(condition, selected));
+    }
+
+    @GetMapping(value = "/v2/members", params = "fields")
+    public ResponseEntity<Page<Map<String, Object>>> searchMemberFieldsV2(MemberSearchCondition condition,
+                                                                         @RequestParam String fields,
+                                                                         Pageable pageable, WebRequest request) {
+        List<MemberField> selected = MemberField.parse(fields);
+        return conditional(request, () -> memberRepository.searchPageFields(condition, selected, pageable));
     }
 
     @GetMapping
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+    public ResponseEntity<Page<MemberTeamDto>> searchMemberV3(MemberSearchCondition condition, Pageable pageable, WebRequest request) {
+        return conditional(request, () -> memberRepository.searchPageComplex(condition, pageable));
+    }
+
+    //after 이후의 회원 변경 이력. 응답의 lastSeq 를 다음 요청의 after 로 넘긴다.
+    @GetMapping("/v1/members/changes")
+    public MemberChangeBatch memberChanges(@RequestParam(defaultValue = "0") long after,
+                                           @RequestParam(defaultValue = "500") int size) {
+        return memberChangeLogRepository.findChangesSince(TenantContext.current(), after, Math.min(Math.max(size, 1), MAX_CHANGE_BATCH));
     }
 
+    /**
+     * tenant 의 데이터 버전으로 ETag 를 만든다. 클라이언트가 같은 ETag 를 들고 오면 쿼리 없이 304 를 준다.
+     * 같은 URL 이라도 조건/페이지가 다르면 URL 이 달라지므로 ETag 에는 버전만 넣는다.
+     * 버전은 DataVersion 의 TTL 캐시로 읽으므로 다른 인스턴스에서 커밋된 변경은 최대 TTL(1초) 동안 304 로 가려질 수 있다.
+     */
+    private <T> ResponseEntity<T> conditional(WebRequest request, Supplier<T> search) {
+        String tenantId = TenantContext.current();
+        String etag = "W/\"" + tenantId + "-" + dataVersion.current(tenantId) + "\"";
+
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(REVALIDATE)
+                    .varyBy(TenantInterceptor.HEADER, HttpHeaders.ACCEPT)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(REVALIDATE)
+                .varyBy(TenantInterceptor.HEADER, HttpHeaders.ACCEPT)
+                .body(search.get());
+    }
 }
@@ -0,0 +1,184 @@
+package study.querydsl.controller;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * List&lt;MemberTeamDto&gt; 를 application/x-member-rows 로 주고받는다.
+ *
+ * <pre>
+ * int rowCount
+ * row: byte flags, [long memberId], [str username], int age, [long teamId], [str teamName]
+ * str: int byteLength, UTF-8 bytes
+ * </pre>
+ *
+ * 팀 이름은 응답 안에서 teamId 별로 처음 한 번만 쓰고, 이후 row 는 TEAM_NAME_SEEN 플래그만 남긴다.
+ * Accept: *&#47;* 에는 JSON 이 나가도록 컨버터 목록의 맨 뒤에 둔다. ({@link MemberCodecConfig})
+ */
+public class MemberRowsHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<MemberTeamDto>> {
+
+    public static final MediaType MEMBER_ROWS = new MediaType("application", "x-member-rows");
+
+    private static final int MEMBER_ID = 1;
+    private static final int USERNAME = 1 << 1;
+    private static final int TEAM_ID = 1 << 2;
+    private static final int TEAM_NAME = 1 << 3;
+    private static final int TEAM_NAME_SEEN = 1 << 4;
+
+    public MemberRowsHttpMessageConverter() {
+        super(MEMBER_ROWS);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    //List<MemberTeamDto> 만 다룬다. 원소 타입을 알 수 없으면 쓰지 않는다.
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return isMemberRows(type) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return isMemberRows(type) && canWrite(mediaType);
+    }
+
+    private static boolean isMemberRows(Type type) {
+        if (type == null) {
+            return false;
+        }
+        ResolvableType resolved = ResolvableType.forType(type);
+        return List.class.isAssignableFrom(resolved.toClass())
+                && resolved.asCollection().resolveGeneric(0) == MemberTeamDto.class;
+    }
+
+    @Override
+    public List<MemberTeamDto> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return readInternal(null, inputMessage);
+    }
+
+    @Override
+    protected List<MemberTeamDto> readInternal(Class<? extends List<MemberTeamDto>> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return decode(inputMessage.getBody());
+        } catch (EOFException | IllegalArgumentException e) {
+            throw new HttpMessageNotReadableException("잘못된 member rows 입니다: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(List<MemberTeamDto> rows, Type type, HttpOutputMessage outputMessage) throws IOException {
+        encode(rows, outputMessage.getBody());
+    }
+
+    public static void encode(List<MemberTeamDto> rows, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 8192));
+        Set<Long> teamNamesSent = new HashSet<>();
+        data.writeInt(rows.size());
+        for (MemberTeamDto row : rows) {
+            int flags = 0;
+            if (row.getMemberId() != null) {
+                flags |= MEMBER_ID;
+            }
+            if (row.getUsername() != null) {
+                flags |= USERNAME;
+            }
+            if (row.getTeamId() != null) {
+                flags |= TEAM_ID;
+            }
+            boolean sendTeamName = row.getTeamName() != null
+                    && (row.getTeamId() == null || teamNamesSent.add(row.getTeamId()));
+            if (sendTeamName) {
+                flags |= TEAM_NAME;
+            } else if (row.getTeamName() != null) {
+                flags |= TEAM_NAME_SEEN;
+            }
+
+            data.writeByte(flags);
+            if ((flags & MEMBER_ID) != 0) {
+                data.writeLong(row.getMemberId());
+            }
+            if ((flags & USERNAME) != 0) {
+                writeString(data, row.getUsername());
+            }
+            data.writeInt(row.getAge());
+            if ((flags & TEAM_ID) != 0) {
+                data.writeLong(row.getTeamId());
+            }
+            if ((flags & TEAM_NAME) != 0) {
+                writeString(data, row.getTeamName());
+            }
+        }
+        data.flush();
+    }
+
+    public static List<MemberTeamDto> decode(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        int count = data.readInt();
+        if (count < 0) {
+            throw new IllegalArgumentException("row 수가 음수입니다: " + count);
+        }
+        Map<Long, String> teamNames = new HashMap<>();
+        List<MemberTeamDto> rows = new ArrayList<>(Math.min(count, 8192));
+        for (int i = 0; i < count; i++) {
+            int flags = data.readUnsignedByte();
+            Long memberId = (flags & MEMBER_ID) != 0 ? data.readLong() : null;
+            String username = (flags & USERNAME) != 0 ? readString(data) : null;
+            int age = data.readInt();
+            Long teamId = (flags & TEAM_ID) != 0 ? data.readLong() : null;
+            String teamName = null;
+            if ((flags & TEAM_NAME) != 0) {
+                teamName = readString(data);
+                if (teamId != null) {
+                    teamNames.put(teamId, teamName);
+                }
+            } else if ((flags & TEAM_NAME_SEEN) != 0) {
+                teamName = teamNames.get(teamId);
+                if (teamName == null) {
+                    throw new IllegalArgumentException("앞에서 나오지 않은 팀입니다: " + teamId);
+                }
+            }
+            rows.add(new MemberTeamDto(memberId, username, age, teamId, teamName));
+        }
+        return rows;
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static String readString(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        if (length < 0) {
+            throw new IllegalArgumentException("문자열 길이가 음수입니다: " + length);
+        }
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,39 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.snapshot.MemberSnapshotService;
+import study.querydsl.support.DataVersion;
+import study.querydsl.tenant.TenantContext;
+
+import java.util.List;
+
+@RestController
+@ConditionalOnProperty(prefix = "member.snapshot", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class MemberSnapshotController {
+
+    private final MemberSnapshotService memberSnapshotService;
+    private final MemberRepository memberRepository;
+    private final DataVersion dataVersion;
+
+    //스냅샷은 hot 회원만 담으므로 includeArchived 는 무시된다.
+    //스냅샷이 없거나, 현재 tenant 의 데이터 버전보다 뒤처졌거나, 거를 수 없는 조건이면 DB 를 읽는다.
+    @GetMapping("/v1/members/snapshot")
+    public List<MemberTeamDto> searchMemberSnapshot(MemberSearchCondition condition) {
+        String tenantId = TenantContext.current();
+        if (memberSnapshotService.supports(condition)
+                && memberSnapshotService.covers(tenantId, dataVersion.read(tenantId))) {
+            List<MemberTeamDto> result = memberSnapshotService.search(condition);
+            if (result != null) {
+                return result;
+            }
+        }
+        return memberRepository.search(condition);
+    }
+}
@@ -0,0 +1,105 @@
+package study.querydsl.dataset;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크와 부하 테스트용 합성 데이터를 JDBC batch insert 로 넣는다. 수백만 건도 batch 하나 분량만 메모리에 둔다.
+ * id 는 엔티티와 같은 hibernate_sequence 에서 insert 문 안에서 바로 받으므로 이후 JPA 로 넣는 row 와 겹치지 않는다.
+ * 엔티티와 변경 이력을 거치지 않으므로 서비스가 요청을 받기 전, 빈 데이터베이스에 쓰는 용도다.
+ *
+ * 같은 DatasetSpec 이면 팀/회원의 순서, 이름, 나이, 팀 배정이 같다. last_active_at 만 실행 시각 기준이다.
+ */
+@Slf4j
+@Component
+public class DatasetGenerator {
+
+    //@GeneratedValue(AUTO) 가 쓰는 시퀀스. Member, Team 이 함께 쓴다.
+    static final String SEQUENCE = "hibernate_sequence";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Dialect dialect;
+
+    public DatasetGenerator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            EntityManagerFactory emf) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dialect = emf.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+    }
+
+    public static String username(int rank) {
+        return "member" + rank;
+    }
+
+    public static String teamName(int index) {
+        return "team" + index;
+    }
+
+    /**
+     * @return 넣은 회원 수
+     */
+    public long generate(DatasetSpec spec) {
+        if (!dialect.supportsSequences()) {
+            throw new IllegalStateException("시퀀스를 지원하지 않는 데이터베이스입니다: " + dialect);
+        }
+        long started = System.nanoTime();
+        DatasetSampler sampler = new DatasetSampler(spec);
+        List<Long> teamIds = insertTeams(spec);
+
+        String memberSql = "insert into member (member_id, username, age, team_id, version, tenant_id, last_active_at)" +
+                " values (" + dialect.getSelectSequenceNextValString(SEQUENCE) + ", ?, ?, ?, 0, ?, ?)";
+        int[] types = {Types.VARCHAR, Types.INTEGER, Types.BIGINT, Types.VARCHAR, Types.TIMESTAMP};
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        List<Object[]> batch = new ArrayList<>(spec.getBatchSize());
+        long written = 0;
+        while (written < spec.getMembers()) {
+            batch.clear();
+            int size = (int) Math.min(spec.getBatchSize(), spec.getMembers() - written);
+            for (int i = 0; i < size; i++) {
+                DatasetSampler.Row row = sampler.next();
+                batch.add(new Object[]{
+                        username(row.username),
+                        row.age,
+                        row.teamIndex < 0 ? null : teamIds.get(row.teamIndex),
+                        spec.getTenantId(),
+                        Timestamp.valueOf(now.minusSeconds(row.inactiveSeconds))});
+            }
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(memberSql, batch, types));
+            written += size;
+        }
+
+        log.info("dataset seed={} teams={} members={} {}ms", spec.getSeed(), teamIds.size(), written,
+                (System.nanoTime() - started) / 1_000_000);
+        return written;
+    }
+
+    //팀은 수가 적으므로 id 를 먼저 받아 두고 회원 row 에 그대로 쓴다.
+    private List<Long> insertTeams(DatasetSpec spec) {
+        String nextId = dialect.getSequenceNextValString(SEQUENCE);
+        List<Long> teamIds = new ArrayList<>(spec.getTeams());
+        List<Object[]> rows = new ArrayList<>(spec.getTeams());
+        for (int i = 0; i < spec.getTeams(); i++) {
+            Long id = jdbcTemplate.queryForObject(nextId, Long.class);
+            teamIds.add(id);
+            rows.add(new Object[]{id, teamName(i), spec.getTenantId()});
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(
+                "insert into team (team_id, name, version, tenant_id) values (?, ?, 0, ?)", rows));
+        return teamIds;
+    }
+}
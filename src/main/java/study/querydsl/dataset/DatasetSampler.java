@@ -0,0 +1,50 @@
+package study.querydsl.dataset;
+
+import java.util.Random;
+
+/**
+ * DatasetSpec 의 분포대로 회원 row 를 하나씩 뽑는다. 한 row 마다 같은 순서로 난수를 쓰므로 seed 가 같으면 결과도 같다.
+ */
+final class DatasetSampler {
+
+    static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+    private final DatasetSpec spec;
+    private final Random random;
+    private final ZipfSampler teams;
+    private final ZipfSampler usernames;
+
+    DatasetSampler(DatasetSpec spec) {
+        this.spec = spec;
+        this.random = new Random(spec.getSeed());
+        this.teams = spec.getTeams() > 0 ? new ZipfSampler(spec.getTeams(), spec.getTeamSkew()) : null;
+        this.usernames = new ZipfSampler(spec.getUsernames(), spec.getUsernameSkew());
+    }
+
+    Row next() {
+        boolean noTeam = random.nextDouble() < spec.getNoTeamRatio();
+        int teamIndex = teams == null || noTeam ? -1 : teams.sample(random);
+        int username = usernames.sample(random);
+        long age = Math.round(spec.getAgeMean() + random.nextGaussian() * spec.getAgeStdDev());
+        double inactiveDays = -Math.log(1 - random.nextDouble()) * spec.getActiveDaysMean();
+        return new Row(teamIndex, username,
+                (int) Math.max(spec.getMinAge(), Math.min(spec.getMaxAge(), age)),
+                (long) (inactiveDays * SECONDS_PER_DAY));
+    }
+
+    static final class Row {
+
+        //팀이 없으면 -1
+        final int teamIndex;
+        final int username;
+        final int age;
+        final long inactiveSeconds;
+
+        Row(int teamIndex, int username, int age, long inactiveSeconds) {
+            this.teamIndex = teamIndex;
+            this.username = username;
+            this.age = age;
+            this.inactiveSeconds = inactiveSeconds;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package study.querydsl.dataset;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import study.querydsl.tenant.TenantContext;
+
+/**
+ * DatasetGenerator 로 만들 데이터의 모양. 같은 seed 와 설정이면 같은 순서로 같은 데이터가 나온다.
+ * 로컬 초기 데이터(InitMember)는 member.dataset 으로 설정하고, 부하 테스트와 벤치마크는 직접 만든다.
+ */
+@Getter @Setter
+@ConfigurationProperties(prefix = "member.dataset")
+public class DatasetSpec {
+
+    private long seed = 42L;
+
+    private int teams = 10;
+
+    private long members = 1000;
+
+    //팀 크기의 Zipf 지수. 0 이면 고르게, 1 이면 team0 이 team1 의 두 배, team2 의 세 배 정도다.
+    private double teamSkew = 1.0;
+
+    //팀이 없는 회원 비율
+    private double noTeamRatio = 0.02;
+
+    //서로 다른 username 수와 그 안에서의 Zipf 지수. 흔한 이름일수록 여러 회원이 같이 쓴다.
+    private int usernames = 500;
+    private double usernameSkew = 0.8;
+
+    //나이는 정규분포를 [minAge, maxAge] 로 자른다.
+    private double ageMean = 35;
+    private double ageStdDev = 12;
+    private int minAge = 10;
+    private int maxAge = 70;
+
+    //마지막 활동 시각은 평균 이 일수만큼 전인 지수분포다. (MemberArchiveJob 의 cold 판정에 쓰인다)
+    private double activeDaysMean = 30;
+
+    //JDBC batch 한 번, 트랜잭션 한 번에 넣는 회원 수
+    private int batchSize = 1000;
+
+    private String tenantId = TenantContext.DEFAULT_TENANT;
+}
@@ -0,0 +1,28 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter
+@ToString
+public class BatchWriteResult {
+
+    private final int updated;
+    private final int attempts;
+    private final List<Long> conflictedIds;
+    //드라이버가 건수를 알려주지 않아(SUCCESS_NO_INFO) 반영 여부를 모르는 회원. 필요하면 다시 읽어 확인한다.
+    private final List<Long> unknownIds;
+
+    public BatchWriteResult(int updated, int attempts, List<Long> conflictedIds, List<Long> unknownIds) {
+        this.updated = updated;
+        this.attempts = attempts;
+        this.conflictedIds = conflictedIds;
+        this.unknownIds = unknownIds;
+    }
+
+    public boolean hasConflicts() {
+        return !conflictedIds.isEmpty();
+    }
+}
@@ -0,0 +1,20 @@
+package study.querydsl.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class MemberChangeBatch {
+
+    private final List<MemberChangeDto> changes;
+    //다음 요청에 after 로 넘길 값
+    private final long lastSeq;
+    private final boolean hasMore;
+
+    public MemberChangeBatch(List<MemberChangeDto> changes, long lastSeq, boolean hasMore) {
+        this.changes = changes;
+        this.lastSeq = lastSeq;
+        this.hasMore = hasMore;
+    }
+}
@@ -0,0 +1,26 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+import study.querydsl.entity.MemberChangeType;
+
+import java.time.LocalDateTime;
+
+@Data
+public class MemberChangeDto {
+
+    private Long seq;
+    private Long memberId;
+    private Long teamId;
+    private MemberChangeType changeType;
+    private LocalDateTime changedAt;
+
+    @QueryProjection
+    public MemberChangeDto(Long seq, Long memberId, Long teamId, MemberChangeType changeType, LocalDateTime changedAt) {
+        this.seq = seq;
+        this.memberId = memberId;
+        this.teamId = teamId;
+        this.changeType = changeType;
+        this.changedAt = changedAt;
+    }
+}
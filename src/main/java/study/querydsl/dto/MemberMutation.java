@@ -0,0 +1,70 @@
+package study.querydsl.dto;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Setter;
+
+/**
+ * 회원 한 건에 대한 변경 요청. setter 를 부른 필드만 변경한다. null 을 넣으면 그 값으로 바꾼다. (팀 비우기)
+ * version 은 변경 요청을 만들 때 읽은 값이고, DB 의 값과 다르면 충돌로 본다.
+ */
+@Data
+public class MemberMutation {
+
+    private Long memberId;
+    private Long version;
+    @Setter(AccessLevel.NONE)
+    private String username;
+    @Setter(AccessLevel.NONE)
+    private Integer age;
+    @Setter(AccessLevel.NONE)
+    private Long teamId;
+
+    @Setter(AccessLevel.NONE)
+    private boolean usernameSet;
+    @Setter(AccessLevel.NONE)
+    private boolean ageSet;
+    @Setter(AccessLevel.NONE)
+    private boolean teamIdSet;
+
+    public MemberMutation() {
+    }
+
+    public MemberMutation(Long memberId, Long version) {
+        this.memberId = memberId;
+        this.version = version;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+        this.usernameSet = true;
+    }
+
+    public void setAge(Integer age) {
+        this.age = age;
+        this.ageSet = true;
+    }
+
+    public void setTeamId(Long teamId) {
+        this.teamId = teamId;
+        this.teamIdSet = true;
+    }
+
+    /**
+     * 바꾼 필드만 currentVersion 위에 다시 적용한다. 다른 필드를 바꾼 writer 와 합치고 싶을 때
+     * MemberBatchWriter.write(mutations, MemberMutation::rebase) 로 넘긴다.
+     */
+    public MemberMutation rebase(Long currentVersion) {
+        MemberMutation rebased = new MemberMutation(memberId, currentVersion);
+        if (usernameSet) {
+            rebased.setUsername(username);
+        }
+        if (ageSet) {
+            rebased.setAge(age);
+        }
+        if (teamIdSet) {
+            rebased.setTeamId(teamId);
+        }
+        return rebased;
+    }
+}
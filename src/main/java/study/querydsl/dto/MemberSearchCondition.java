@@ -1,13 +1,25 @@
 package study.querydsl.dto;
 
 import lombok.Data;
+import study.querydsl.predicate.Eq;
+import study.querydsl.predicate.Goe;
+import study.querydsl.predicate.Loe;
+import study.querydsl.predicate.SearchCondition;
 
+//조건 메서드는 컴파일 시점에 MemberSearchConditionPredicates 로 생성된다.
 @Data
+@SearchCondition(entityPackage = "study.querydsl.entity")
 public class MemberSearchCondition {
 
+    @Eq(path = "member.username")
     private String username;
+    @Eq(path = "team.name")
     private String teamName;
+    @Goe(path = "member.age")
     private Integer ageGoe;
+    @Loe(path = "member.age")
     private Integer ageLoe;
+    //true 면 member_archive 도 찾아서 hot 결과 뒤에 붙인다.
+    private boolean includeArchived;
 
 }
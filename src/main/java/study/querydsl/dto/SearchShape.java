@@ -0,0 +1,38 @@
+package study.querydsl.dto;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 조건의 값이 아니라 어떤 조건이 채워졌는지로 검색을 나눈다. (username+teamName, age 등)
+ * 같은 모양의 검색은 같은 인덱스와 비슷한 결과 크기를 가지므로 통계를 함께 쓴다.
+ * 값의 종류가 몇 가지뿐이므로 메트릭 태그로 써도 된다.
+ */
+public final class SearchShape {
+
+    private SearchShape() {
+    }
+
+    public static String of(MemberSearchCondition condition) {
+        StringBuilder shape = new StringBuilder();
+        if (hasText(condition.getUsername())) {
+            append(shape, "username");
+        }
+        if (hasText(condition.getTeamName())) {
+            append(shape, "teamName");
+        }
+        if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+            append(shape, "age");
+        }
+        if (condition.isIncludeArchived()) {
+            append(shape, "archived");
+        }
+        return shape.length() == 0 ? "all" : shape.toString();
+    }
+
+    private static void append(StringBuilder shape, String part) {
+        if (shape.length() > 0) {
+            shape.append('+');
+        }
+        shape.append(part);
+    }
+}
@@ -1,13 +1,22 @@
 package study.querydsl.entity;
 
 import lombok.*;
+import org.hibernate.Hibernate;
+import study.querydsl.tenant.TenantContext;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(MemberChangeListener.class)
+@Table(indexes = {
+        @Index(name = "idx_member_team_id", columnList = "tenant_id, team_id, member_id"),
+        @Index(name = "idx_member_username_age", columnList = "tenant_id, username, age, member_id"),
+        @Index(name = "idx_member_age", columnList = "tenant_id, age, member_id"),
+        @Index(name = "idx_member_last_active_at", columnList = "last_active_at, member_id")})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
-@ToString(of = {"id", "username", "age"})
+@ToString(of = {"id", "username", "age", "version"})
 public class Member {
     @Id
     @GeneratedValue
@@ -18,6 +27,16 @@ public class Member {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+    //모든 조회에 tenant_id 조건이 붙으므로 인덱스도 tenant_id 로 시작한다.
+    @Column(name = "tenant_id", length = 64, nullable = false, updatable = false)
+    @Setter(AccessLevel.NONE)
+    private String tenantId;
+    //오래 활동이 없으면 MemberArchiveJob 이 member_archive 로 옮긴다.
+    @Column(name = "last_active_at", nullable = false)
+    private LocalDateTime lastActiveAt;
     public Member(String username) {
         this(username, 0);
     }
@@ -31,8 +50,36 @@ public class Member {
             changeTeam(team);
         }
     }
-    public void changeTeam(Team team) {
+    //이전 팀 목록에서도 빼야 양쪽이 맞는다. 같은 회원을 여러 스레드가 옮겨도 team 과 목록이 어긋나지 않도록 회원 단위로 잠근다.
+    //팀 목록은 Team 이 따로 잠그고, 회원 -> 팀 순서로만 잡으므로 교착은 생기지 않는다.
+    public synchronized void changeTeam(Team team) {
+        Team old = this.team;
+        if (old == team) {
+            return;
+        }
+        //아직 로딩되지 않은 프록시라면 목록도 로딩 전이므로 건드리지 않는다. (팀 select 를 만들지 않는다)
+        if (old != null && Hibernate.isInitialized(old)) {
+            old.removeMember(this);
+        }
         this.team = team;
-        team.getMembers().add(this);
+        team.addMember(this);
+    }
+    public void touch() {
+        this.lastActiveAt = LocalDateTime.now();
+    }
+    //회원 정보가 바뀌는 것도 활동이다. JDBC 로 고치는 MemberBatchWriter, bulkUpdate 는 last_active_at 을 직접 갱신한다.
+    @PreUpdate
+    public void preUpdate() {
+        touch();
+    }
+    //StatelessSession 은 콜백을 부르지 않으므로 MemberBulkRepository 가 직접 호출한다.
+    @PrePersist
+    public void prePersist() {
+        if (tenantId == null) {
+            tenantId = TenantContext.current();
+        }
+        if (lastActiveAt == null) {
+            lastActiveAt = LocalDateTime.now();
+        }
     }
 }
\ No newline at end of file
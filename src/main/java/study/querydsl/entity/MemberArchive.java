@@ -0,0 +1,43 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 오래 활동이 없는 회원(cold). MemberArchiveJob 이 JDBC 로 옮기므로 애플리케이션에서 직접 저장하지 않는다.
+ * member_id 는 원래 회원의 id 를 그대로 쓰고, 팀은 연관관계 없이 id 만 남긴다.
+ */
+@Entity
+@Table(name = "member_archive", indexes = {
+        @Index(name = "idx_member_archive_team_id", columnList = "tenant_id, team_id, member_id"),
+        @Index(name = "idx_member_archive_username_age", columnList = "tenant_id, username, age, member_id")})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class MemberArchive {
+
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @Column(name = "tenant_id", length = 64, nullable = false)
+    private String tenantId;
+
+    private String username;
+
+    private int age;
+
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Column(name = "last_active_at", nullable = false)
+    private LocalDateTime lastActiveAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
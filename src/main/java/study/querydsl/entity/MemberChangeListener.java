@@ -0,0 +1,42 @@
+package study.querydsl.entity;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.MemberChangeLogRepository;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * flush 시점에 같은 커넥션(트랜잭션)으로 변경 이력을 남긴다.
+ * changeTeam 도 결국 Member 의 update 로 flush 되므로 여기서 함께 기록된다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberChangeListener {
+
+    //EntityManagerFactory 생성 중에 만들어질 수 있어서 JPA 에 의존하는 빈은 늦게 꺼낸다.
+    private final ObjectProvider<MemberChangeLogRepository> changeLogRepository;
+
+    @PostPersist
+    public void postPersist(Member member) {
+        changeLogRepository.getObject().append(member.getTenantId(), member.getId(), teamIdOf(member), MemberChangeType.INSERT);
+    }
+
+    @PostUpdate
+    public void postUpdate(Member member) {
+        changeLogRepository.getObject().append(member.getTenantId(), member.getId(), teamIdOf(member), MemberChangeType.UPDATE);
+    }
+
+    @PostRemove
+    public void postRemove(Member member) {
+        changeLogRepository.getObject().append(member.getTenantId(), member.getId(), teamIdOf(member), MemberChangeType.DELETE);
+    }
+
+    //프록시의 id 조회는 초기화를 일으키지 않는다.
+    private Long teamIdOf(Member member) {
+        return member.getTeam() == null ? null : member.getTeam().getId();
+    }
+}
@@ -0,0 +1,43 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 회원 변경 이력(outbox). 회원을 저장한 트랜잭션 안에서 함께 기록되고,
+ * 하위 캐시/검색 색인은 seq 이후의 변경만 가져가서 동기화한다.
+ */
+@Entity
+@Table(name = "member_change_log",
+        indexes = @Index(name = "idx_member_change_log_tenant_seq", columnList = "tenant_id, seq"))
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class MemberChangeLog {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+
+    //팀 변경이면 null
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Column(name = "tenant_id", length = 64)
+    private String tenantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", nullable = false, length = 20)
+    private MemberChangeType changeType;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,9 @@
+package study.querydsl.entity;
+
+public enum MemberChangeType {
+    INSERT, UPDATE, DELETE, BULK_UPDATE,
+    //member_archive 로 옮겨져 hot 테이블에서 빠졌다.
+    ARCHIVE,
+    //팀 이름 변경, 추가, 삭제. member_id 는 비어 있다.
+    TEAM_CHANGE
+}
@@ -2,12 +2,19 @@ package study.querydsl.entity;
 
 
 import lombok.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.LazyCollection;
+import org.hibernate.annotations.LazyCollectionOption;
+import org.hibernate.annotations.OptimisticLock;
+import study.querydsl.tenant.TenantContext;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "tenant_id, name"))
+@EntityListeners(TeamChangeListener.class)
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
@@ -19,10 +26,43 @@ public class Team {
 
     private String name;
 
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
+    @Column(name = "tenant_id", length = 64, nullable = false, updatable = false)
+    @Setter(AccessLevel.NONE)
+    private String tenantId;
+
+    //회원 이동으로 팀 버전이 올라가면 같은 팀을 건드리는 writer 끼리 충돌한다.
+    //size(), contains() 는 count/exists 쿼리로 처리되고 전체 목록은 읽지 않는다.
+    @OptimisticLock(excluded = true)
+    @LazyCollection(LazyCollectionOption.EXTRA)
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
     public Team(String name) {
         this.name = name;
     }
+
+    //StatelessSession 은 콜백을 부르지 않으므로 MemberBulkRepository 가 직접 호출한다.
+    @PrePersist
+    public void prePersist() {
+        if (tenantId == null) {
+            tenantId = TenantContext.current();
+        }
+    }
+
+    //배치 작업이 같은 팀 객체를 여러 스레드에서 쓰므로 목록 변경은 팀 단위로 잠근다.
+    //로딩 전 목록(EXTRA, mappedBy)에 add 하면 목록을 읽지 않고 쌓아 뒀다가, flush 전에 목록을 읽을 때 함께 보여준다.
+    synchronized void addMember(Member member) {
+        members.add(member);
+    }
+
+    //remove 는 로딩 전이면 목록 전체를 읽으므로 건너뛴다. 나중에 DB 에서 읽을 때 반영된다.
+    synchronized void removeMember(Member member) {
+        if (Hibernate.isInitialized(members)) {
+            members.remove(member);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package study.querydsl.entity;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import study.querydsl.repository.MemberChangeLogRepository;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * 팀 이름은 회원 검색 결과에 들어가므로 팀이 바뀌어도 데이터 버전이 올라가야 한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TeamChangeListener {
+
+    //EntityManagerFactory 생성 중에 만들어질 수 있어서 JPA 에 의존하는 빈은 늦게 꺼낸다.
+    private final ObjectProvider<MemberChangeLogRepository> changeLogRepository;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Team team) {
+        changeLogRepository.getObject().append(team.getTenantId(), null, team.getId(), MemberChangeType.TEAM_CHANGE);
+    }
+}
@@ -0,0 +1,30 @@
+package study.querydsl.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * tenant 별 회원/팀 데이터 버전. DataVersion 이 변경 이력을 남기는 트랜잭션 안에서 JDBC 로 올리므로
+ * 애플리케이션에서 직접 저장하지 않는다.
+ */
+@Entity
+@Table(name = "data_version")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TenantDataVersion {
+
+    @Id
+    @Column(name = "tenant_id", length = 64)
+    private String tenantId;
+
+    @Column(nullable = false)
+    private long version;
+}
@@ -0,0 +1,77 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+/**
+ * Hibernate 쿼리 플랜 캐시와 PreparedStatement 생성 횟수를 메트릭으로 노출한다.
+ * 플랜 캐시는 HQL/JPQL 을 SQL 로 바꾼 결과의 캐시이고, JDBC 드라이버/커넥션 풀의 statement 캐시 적중률이 아니다.
+ * hibernate.generate_statistics 가 꺼져 있으면(기본) 값이 0 으로만 보이므로 등록하지 않는다. 부하 테스트 프로파일에서만 켠다.
+ * H2 의 statement(파싱된 쿼리) 캐시는 적중 수를 알려주지 않으므로 설정된 크기만 노출한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class HibernateStatementMetrics implements MeterBinder {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindQueryCacheSize(registry);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return;
+        }
+        FunctionCounter.builder("hibernate.query.plan.cache", statistics, Statistics::getQueryPlanCacheHitCount)
+                .tag("result", "hit")
+                .description("HQL/JPQL 플랜 캐시 적중 수")
+                .register(registry);
+        FunctionCounter.builder("hibernate.query.plan.cache", statistics, Statistics::getQueryPlanCacheMissCount)
+                .tag("result", "miss")
+                .description("HQL/JPQL 플랜 캐시 미스 수")
+                .register(registry);
+        Gauge.builder("hibernate.query.plan.cache.hit.ratio", statistics, HibernateStatementMetrics::hitRatio)
+                .register(registry);
+        FunctionCounter.builder("hibernate.statements.prepared", statistics, Statistics::getPrepareStatementCount)
+                .description("JDBC PreparedStatement 를 요청한 횟수")
+                .register(registry);
+    }
+
+    //H2 가 아니면 설정 테이블이 없으므로 등록하지 않는다.
+    private void bindQueryCacheSize(MeterRegistry registry) {
+        List<Integer> sizes;
+        try {
+            sizes = jdbcTemplate.queryForList(
+                    "select setting_value from information_schema.settings where setting_name = 'QUERY_CACHE_SIZE'",
+                    Integer.class);
+        } catch (DataAccessException e) {
+            return;
+        }
+        if (sizes.isEmpty()) {
+            return;
+        }
+        int size = sizes.get(0);
+        Gauge.builder("h2.query.cache.size", () -> size)
+                .description("H2 세션별 파싱된 쿼리 캐시 크기")
+                .register(registry);
+    }
+
+    private static double hitRatio(Statistics statistics) {
+        long hits = statistics.getQueryPlanCacheHitCount();
+        long total = hits + statistics.getQueryPlanCacheMissCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
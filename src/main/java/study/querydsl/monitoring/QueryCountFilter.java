@@ -0,0 +1,49 @@
+package study.querydsl.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * HTTP 요청 하나 동안 실행된 statement 수를 URI 패턴별로 남긴다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "monitoring.query-stats", name = "enabled", matchIfMissing = true)
+@RequiredArgsConstructor
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private final QueryStats queryStats;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        queryStats.beginRequest();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            String uri = uriOf(request);
+            long statements = queryStats.endRequest(request.getMethod() + " " + uri);
+            DistributionSummary.builder("http.server.requests.statements")
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .record(statements);
+        }
+    }
+
+    //매칭된 패턴을 쓰고, 매칭되지 않은 요청은 한 곳으로 모아 태그 종류가 늘어나지 않게 한다.
+    private String uriOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
@@ -0,0 +1,207 @@
+package study.querydsl.monitoring;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * p6spy 로 잡은 statement 실행 시간을 SQL 모양별, HTTP 요청 URI 별로 모은다.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryStats {
+
+    private static final String OTHER = "other";
+
+    private final QueryStatsProperties properties;
+
+    private final ConcurrentMap<String, Aggregate> shapes = new ConcurrentHashMap<>();
+    //같은 PreparedStatement SQL 이 반복되므로 정규식 변환은 SQL 마다 한 번만 한다.
+    private final ConcurrentMap<String, String> shapeOfSql = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Aggregate> requests = new ConcurrentHashMap<>();
+    private final PriorityQueue<SlowQuery> slowest = new PriorityQueue<>(Comparator.comparingLong(SlowQuery::getNanos));
+    //slowest 가 가득 찼을 때 들어갈 수 있는 최소 시간. 대부분의 빠른 쿼리는 락 없이 걸러진다.
+    private volatile long slowThresholdNanos;
+
+    private final ThreadLocal<long[]> requestStatements = new ThreadLocal<>();
+
+    /**
+     * @param sqlWithValues 느린 쿼리로 보관하고 includeValues 가 켜져 있을 때만 호출된다.
+     */
+    public void record(String sql, Supplier<String> sqlWithValues, long nanos) {
+        String shape = shapeOf(sql);
+        aggregate(shapes, shape).add(nanos);
+
+        long[] counter = requestStatements.get();
+        if (counter != null) {
+            counter[0]++;
+            counter[1] += nanos;
+        }
+
+        if (nanos >= slowThresholdNanos) {
+            offerSlow(new SlowQuery(shape, properties.isIncludeValues() ? sqlWithValues.get() : null, nanos, Instant.now()));
+        }
+    }
+
+    private String shapeOf(String sql) {
+        String shape = shapeOfSql.get(sql);
+        if (shape != null) {
+            return shape;
+        }
+        shape = SqlShape.of(sql);
+        //리터럴이 박힌 SQL 은 종류가 끝없이 늘 수 있으므로 상한까지만 기억한다.
+        if (shapeOfSql.size() < properties.getShapeCacheSize()) {
+            shapeOfSql.put(sql, shape);
+        }
+        return shape;
+    }
+
+    public void beginRequest() {
+        requestStatements.set(new long[2]);
+    }
+
+    /**
+     * @return 요청 동안 실행된 statement 수
+     */
+    public long endRequest(String uri) {
+        long[] counter = requestStatements.get();
+        requestStatements.remove();
+        if (counter == null) {
+            return 0;
+        }
+        aggregate(requests, uri).add(counter[0], counter[1]);
+        return counter[0];
+    }
+
+    public List<ShapeSnapshot> shapes() {
+        return snapshot(shapes);
+    }
+
+    public List<ShapeSnapshot> requests() {
+        return snapshot(requests);
+    }
+
+    public synchronized List<SlowQuery> slowest() {
+        List<SlowQuery> result = new ArrayList<>(slowest);
+        result.sort(Comparator.comparingLong(SlowQuery::getNanos).reversed());
+        return result;
+    }
+
+    public synchronized void reset() {
+        shapes.clear();
+        requests.clear();
+        slowest.clear();
+        slowThresholdNanos = 0;
+    }
+
+    private synchronized void offerSlow(SlowQuery query) {
+        slowest.offer(query);
+        if (slowest.size() > properties.getSlowestSize()) {
+            slowest.poll();
+        }
+        if (slowest.size() >= properties.getSlowestSize()) {
+            slowThresholdNanos = slowest.peek().getNanos();
+        }
+    }
+
+    private Aggregate aggregate(ConcurrentMap<String, Aggregate> map, String key) {
+        Aggregate aggregate = map.get(key);
+        if (aggregate != null) {
+            return aggregate;
+        }
+        if (map.size() >= properties.getMaxShapes()) {
+            key = OTHER;
+        }
+        return map.computeIfAbsent(key, k -> new Aggregate());
+    }
+
+    private List<ShapeSnapshot> snapshot(ConcurrentMap<String, Aggregate> map) {
+        return map.entrySet().stream()
+                .map(e -> e.getValue().snapshot(e.getKey()))
+                .sorted(Comparator.comparingLong(ShapeSnapshot::getTotalNanos).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private static class Aggregate {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void add(long nanos) {
+            add(1, nanos);
+        }
+
+        void add(long statementCount, long nanos) {
+            count.increment();
+            statements.add(statementCount);
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        ShapeSnapshot snapshot(String key) {
+            return new ShapeSnapshot(key, count.sum(), statements.sum(), totalNanos.sum(), maxNanos.get());
+        }
+    }
+
+    @Getter
+    public static class ShapeSnapshot {
+
+        private final String key;
+        private final long count;
+        //요청 집계일 때는 요청 동안 실행된 statement 수의 합, SQL 모양 집계일 때는 count 와 같다.
+        private final long statements;
+        private final long totalNanos;
+        private final long maxNanos;
+
+        ShapeSnapshot(String key, long count, long statements, long totalNanos, long maxNanos) {
+            this.key = key;
+            this.count = count;
+            this.statements = statements;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public double getAvgMillis() {
+            return count == 0 ? 0 : totalNanos / 1_000_000.0 / count;
+        }
+
+        public double getStatementsPerCount() {
+            return count == 0 ? 0 : (double) statements / count;
+        }
+    }
+
+    @Getter
+    public static class SlowQuery {
+
+        private final String shape;
+        //includeValues 가 꺼져 있으면 null
+        private final String sqlWithValues;
+        private final long nanos;
+        private final Instant executedAt;
+
+        SlowQuery(String shape, String sqlWithValues, long nanos, Instant executedAt) {
+            this.shape = shape;
+            this.sqlWithValues = sqlWithValues;
+            this.nanos = nanos;
+            this.executedAt = executedAt;
+        }
+
+        public double getMillis() {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package study.querydsl.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * GET /actuator/querystats 로 조회하고 DELETE 로 초기화한다.
+ */
+@Component
+@Endpoint(id = "querystats")
+@RequiredArgsConstructor
+public class QueryStatsEndpoint {
+
+    private final QueryStats queryStats;
+
+    @ReadOperation
+    public Map<String, Object> queryStats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("shapes", queryStats.shapes());
+        result.put("requests", queryStats.requests());
+        result.put("slowest", queryStats.slowest());
+        return result;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        queryStats.reset();
+    }
+}
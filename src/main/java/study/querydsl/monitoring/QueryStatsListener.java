@@ -0,0 +1,29 @@
+package study.querydsl.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy-spring-boot-starter 는 JdbcEventListener 빈을 자동으로 등록한다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "monitoring.query-stats", name = "enabled", matchIfMissing = true)
+@RequiredArgsConstructor
+public class QueryStatsListener extends SimpleJdbcEventListener {
+
+    private final QueryStats queryStats;
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String sql = statementInformation.getSql();
+        if (sql == null || sql.isEmpty()) {
+            return;
+        }
+        queryStats.record(sql, statementInformation::getSqlWithValues, timeElapsedNanos);
+    }
+}
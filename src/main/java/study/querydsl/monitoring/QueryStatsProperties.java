@@ -0,0 +1,24 @@
+package study.querydsl.monitoring;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "monitoring.query-stats")
+public class QueryStatsProperties {
+
+    private boolean enabled = true;
+
+    //느린 쿼리를 몇 건까지 보관할지
+    private int slowestSize = 50;
+
+    //느린 쿼리에 바인딩 값을 함께 보관할지. 값에 개인정보가 들어 있으므로 로컬에서 원인을 볼 때만 켠다.
+    private boolean includeValues = false;
+
+    //SQL 문자열 -> 모양 변환 결과를 몇 개까지 기억할지. 넘치면 기억하지 않고 매번 계산한다.
+    private int shapeCacheSize = 5000;
+
+    //SQL 모양 종류가 이보다 많아지면 나머지는 "other" 로 모은다.
+    private int maxShapes = 1000;
+}
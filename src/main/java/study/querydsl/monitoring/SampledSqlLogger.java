@@ -0,0 +1,63 @@
+package study.querydsl.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 운영용 SQL 로그. 남길 statement 를 먼저 고르고, 고른 것만 바인딩 값을 채운 SQL 로 만든다.
+ * 로그는 study.querydsl.sql 로거로 나가므로 logback 설정에서 비동기 appender 를 붙인다.
+ */
+@Component
+@RequiredArgsConstructor
+public class SampledSqlLogger extends SimpleJdbcEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger("study.querydsl.sql");
+
+    private final SqlLoggingProperties properties;
+    private final AtomicLong executed = new AtomicLong();
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (!shouldLog(timeElapsedNanos, e) || !log.isInfoEnabled()) {
+            return;
+        }
+        log.info("{} ms | {}", TimeUnit.NANOSECONDS.toMillis(timeElapsedNanos), new LazySql(statementInformation));
+    }
+
+    boolean shouldLog(long timeElapsedNanos, SQLException e) {
+        boolean slow = timeElapsedNanos >= properties.getSlowThreshold().toNanos();
+        switch (properties.getMode()) {
+            case ALL:
+                return true;
+            case SAMPLED:
+                return e != null || slow || executed.incrementAndGet() % properties.getSampleRate() == 0;
+            case SLOW:
+                return e != null || slow;
+            default:
+                return false;
+        }
+    }
+
+    //로그 이벤트가 실제로 포맷될 때만 SQL 에 값을 채운다.
+    private static class LazySql {
+
+        private final StatementInformation statementInformation;
+
+        LazySql(StatementInformation statementInformation) {
+            this.statementInformation = statementInformation;
+        }
+
+        @Override
+        public String toString() {
+            return statementInformation.getSqlWithValues();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydsl.monitoring;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "monitoring.sql-logging")
+public class SqlLoggingProperties {
+
+    //기본값 OFF 는 p6spy starter 의 로깅(decorator.datasource.p6spy.*)만 쓰는 기존 동작이다.
+    private Mode mode = Mode.OFF;
+
+    //SAMPLED 일 때 N 건 중 1 건을 남긴다.
+    private int sampleRate = 100;
+
+    //SAMPLED, SLOW 에서 이 시간보다 오래 걸린 statement 는 항상 남긴다.
+    private Duration slowThreshold = Duration.ofMillis(200);
+
+    public enum Mode {
+        ALL, SAMPLED, SLOW, OFF
+    }
+}
@@ -0,0 +1,83 @@
+package study.querydsl.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.MemberChangeType;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * last_active_at 이 오래된 회원을 member_archive 로 옮긴다.
+ * batchSize 만큼 복사 -> 이력 기록 -> 삭제를 한 트랜잭션으로 처리하고 커밋하므로
+ * 중간에 실패해도 이미 옮긴 batch 는 남고, 다음 실행이 이어서 옮긴다.
+ * 모든 tenant 를 대상으로 한다.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class MemberArchiveJob {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final MemberChangeLogRepository changeLogRepository;
+    private final MemberArchiveProperties properties;
+
+    public long archiveCold() {
+        return archive(LocalDateTime.now().minus(properties.getColdAfter()));
+    }
+
+    /**
+     * @return 옮긴 회원 수
+     */
+    public long archive(LocalDateTime activeBefore) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        long archived = 0;
+        while (true) {
+            Integer moved = tx.execute(status -> archiveBatch(activeBefore));
+            if (moved == null || moved == 0) {
+                break;
+            }
+            archived += moved;
+            if (moved < properties.getBatchSize()) {
+                break;
+            }
+        }
+        log.info("archived {} members inactive since {}", archived, activeBefore);
+        return archived;
+    }
+
+    private int archiveBatch(LocalDateTime activeBefore) {
+        //(last_active_at, member_id) 인덱스 범위만 읽는다.
+        List<Long> ids = jdbcTemplate.queryForList(
+                "select member_id from member where last_active_at < ? order by last_active_at, member_id limit ?",
+                Long.class, Timestamp.valueOf(activeBefore), properties.getBatchSize());
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("archivedAt", Timestamp.valueOf(LocalDateTime.now()));
+        namedParameterJdbcTemplate.update(
+                "insert into member_archive (member_id, tenant_id, username, age, team_id, last_active_at, archived_at)" +
+                " select member_id, tenant_id, username, age, team_id, last_active_at, :archivedAt" +
+                " from member where member_id in (:ids)",
+                params);
+        //삭제 전에 기록해야 tenant_id, team_id 를 member 에서 읽을 수 있다.
+        changeLogRepository.appendAll(ids, MemberChangeType.ARCHIVE);
+        namedParameterJdbcTemplate.update(
+                "delete from member where member_id in (:ids)",
+                Collections.singletonMap("ids", ids));
+        return ids.size();
+    }
+}
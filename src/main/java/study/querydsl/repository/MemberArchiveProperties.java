@@ -0,0 +1,23 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "member.archive")
+public class MemberArchiveProperties {
+
+    //true 일 때만 스케줄러가 등록된다.
+    private boolean enabled = false;
+
+    private String cron = "0 0 4 * * *";
+
+    //마지막 활동 후 이 기간이 지나면 cold 로 본다.
+    private Duration coldAfter = Duration.ofDays(180);
+
+    //한 트랜잭션에서 옮기는 회원 수
+    private int batchSize = 500;
+}
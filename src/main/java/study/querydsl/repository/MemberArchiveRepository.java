@@ -0,0 +1,84 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.tenant.TenantContext;
+
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMemberArchive.memberArchive;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * member_archive 조회. 검색 조건은 회원 검색과 같지만 경로가 달라서 생성된 Predicates 를 쓸 수 없다.
+ * 정렬은 member_id 순서로 고정이다.
+ */
+@Repository
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class MemberArchiveRepository {
+
+    private final JPAQueryFactory queryFactory;
+    private final MemberSearchGuard guard;
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition, long offset, int limit) {
+        return guard.execute(() -> guard.timeout(queryFactory
+                .select(new QMemberTeamDto(
+                        memberArchive.memberId,
+                        memberArchive.username,
+                        memberArchive.age,
+                        memberArchive.teamId,
+                        team.name))
+                .from(memberArchive)
+                .leftJoin(team).on(team.id.eq(memberArchive.teamId))
+                .where(where(condition))
+                .orderBy(memberArchive.memberId.asc())
+                .offset(offset)
+                .limit(limit))
+                .fetch());
+    }
+
+    public long count(MemberSearchCondition condition) {
+        Long count = guard.execute(() -> guard.timeout(queryFactory
+                .select(memberArchive.count())
+                .from(memberArchive)
+                .leftJoin(team).on(team.id.eq(memberArchive.teamId))
+                .where(where(condition)))
+                .fetchOne());
+        return count == null ? 0 : count;
+    }
+
+    private Predicate[] where(MemberSearchCondition condition) {
+        return new Predicate[]{
+                memberArchive.tenantId.eq(TenantContext.current()),
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        };
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return hasText(username) ? memberArchive.username.eq(username) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? memberArchive.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? memberArchive.age.loe(ageLoe) : null;
+    }
+}
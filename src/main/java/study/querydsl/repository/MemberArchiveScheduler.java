@@ -0,0 +1,21 @@
+package study.querydsl.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(prefix = "member.archive", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class MemberArchiveScheduler {
+
+    private final MemberArchiveJob memberArchiveJob;
+
+    @Scheduled(cron = "${member.archive.cron:0 0 4 * * *}")
+    public void archive() {
+        memberArchiveJob.archiveCold();
+    }
+}
@@ -0,0 +1,221 @@
+package study.querydsl.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.BatchWriteResult;
+import study.querydsl.dto.MemberMutation;
+import study.querydsl.entity.MemberChangeType;
+import study.querydsl.tenant.TenantContext;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+/**
+ * 회원 변경을 JDBC batch 로 반영한다. 각 row 는 version 이 일치할 때만 갱신된다.
+ * 충돌한 row 는 기본으로 conflictedIds 로 돌려주고, 호출자가 고르면 최신 version 을 다시 읽어 재시도한다.
+ * 드라이버가 건수 대신 SUCCESS_NO_INFO 를 주면 성공인지 충돌인지 알 수 없으므로 unknownIds 로 따로 돌려준다.
+ * (version 으로 다시 확인하면 다른 writer 가 먼저 올린 version 과 구분되지 않는다)
+ * 변경 요청에서 set 된 필드만 바꾸므로 null 로 set 하면 값을 비울 수 있다.
+ * 잘못된 요청은 IllegalArgumentException 으로 알린다. SQL 예외는 JdbcTemplate 이 이미 변환하므로 @Repository 로 다시 감싸지 않는다.
+ * 영속성 컨텍스트를 거치지 않으므로 같은 트랜잭션에서 이미 읽은 엔티티는 갱신되지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberBatchWriter {
+
+    static final int BATCH_SIZE = 500;
+    static final int MAX_ATTEMPTS = 3;
+
+    private static final String UPDATE_SQL =
+            "update member" +
+            " set username = case when ? then ? else username end," +
+            " age = case when ? then ? else age end," +
+            " team_id = case when ? then ? else team_id end," +
+            " last_active_at = ?," +
+            " version = version + 1" +
+            " where member_id = ? and version = ? and tenant_id = ?";
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final MemberChangeLogRepository changeLogRepository;
+
+    /**
+     * 충돌한 변경은 재시도하지 않고 결과의 conflictedIds 로 알려준다.
+     * 다른 writer 의 변경 위에 덮어써도 되면 write(mutations, MemberMutation::rebase) 를 쓴다.
+     */
+    @Transactional
+    public BatchWriteResult write(List<MemberMutation> mutations) {
+        return doWrite(mutations, null);
+    }
+
+    /**
+     * @param onConflict 충돌한 변경과 현재 version 을 받아 재시도할 변경을 돌려준다. null 이면 포기한다.
+     */
+    @Transactional
+    public BatchWriteResult write(List<MemberMutation> mutations,
+                                  BiFunction<MemberMutation, Long, MemberMutation> onConflict) {
+        return doWrite(mutations, Objects.requireNonNull(onConflict, "onConflict"));
+    }
+
+    //onConflict 가 null 이면 재시도하지 않으므로 현재 version 도 읽지 않는다.
+    private BatchWriteResult doWrite(List<MemberMutation> mutations,
+                                     BiFunction<MemberMutation, Long, MemberMutation> onConflict) {
+        Set<Long> teamIds = new HashSet<>();
+        for (MemberMutation m : mutations) {
+            if (m.isAgeSet() && m.getAge() == null) {
+                throw new IllegalArgumentException("age 는 비울 수 없습니다. memberId=" + m.getMemberId());
+            }
+            if (m.isTeamIdSet() && m.getTeamId() != null) {
+                teamIds.add(m.getTeamId());
+            }
+        }
+        //회원은 tenant_id 로 막히지만 team_id 는 FK 만 보므로 다른 tenant 의 팀으로 옮길 수 있다. 먼저 걸러낸다.
+        teamIds.removeAll(teamsOfCurrentTenant(new ArrayList<>(teamIds)));
+        if (!teamIds.isEmpty()) {
+            throw new IllegalArgumentException("현재 tenant 의 팀이 아닙니다: " + teamIds);
+        }
+        //JPA 로 변경한 내용이 있다면 먼저 반영해야 version 비교가 맞는다.
+        em.flush();
+
+        List<MemberMutation> pending = new ArrayList<>(mutations);
+        List<Long> updatedIds = new ArrayList<>();
+        List<Long> conflictedIds = new ArrayList<>();
+        List<Long> unknownIds = new ArrayList<>();
+        int attempts = 0;
+
+        while (!pending.isEmpty()) {
+            attempts++;
+            List<MemberMutation> failed = execute(pending, updatedIds, unknownIds);
+
+            if (failed.isEmpty()) {
+                break;
+            }
+            if (onConflict == null || attempts == MAX_ATTEMPTS) {
+                failed.forEach(m -> conflictedIds.add(m.getMemberId()));
+                break;
+            }
+            pending = retryOf(failed, onConflict, conflictedIds);
+        }
+
+        //반영됐을 수도 있는 회원은 변경 이력에 남긴다. 이력이 빠지는 것보다 한 번 더 남는 편이 낫다.
+        List<Long> changedIds = new ArrayList<>(updatedIds);
+        changedIds.addAll(unknownIds);
+        changeLogRepository.appendAll(changedIds, MemberChangeType.UPDATE);
+        return new BatchWriteResult(updatedIds.size(), attempts, conflictedIds, unknownIds);
+    }
+
+    private List<MemberMutation> execute(List<MemberMutation> mutations, List<Long> updatedIds, List<Long> unknownIds) {
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, mutations, BATCH_SIZE, this::bind);
+
+        //0 건만 충돌이다. SUCCESS_NO_INFO(-2) 는 반영 여부를 모르므로 재시도하지 않고 따로 알린다.
+        List<MemberMutation> failed = new ArrayList<>();
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count == 0) {
+                    failed.add(mutations.get(index));
+                } else if (count == Statement.SUCCESS_NO_INFO) {
+                    unknownIds.add(mutations.get(index).getMemberId());
+                } else {
+                    updatedIds.add(mutations.get(index).getMemberId());
+                }
+                index++;
+            }
+        }
+        return failed;
+    }
+
+    private void bind(PreparedStatement ps, MemberMutation m) throws SQLException {
+        ps.setBoolean(1, m.isUsernameSet());
+        if (m.getUsername() != null) {
+            ps.setString(2, m.getUsername());
+        } else {
+            ps.setNull(2, Types.VARCHAR);
+        }
+        ps.setBoolean(3, m.isAgeSet());
+        if (m.getAge() != null) {
+            ps.setInt(4, m.getAge());
+        } else {
+            ps.setNull(4, Types.INTEGER);
+        }
+        ps.setBoolean(5, m.isTeamIdSet());
+        if (m.getTeamId() != null) {
+            ps.setLong(6, m.getTeamId());
+        } else {
+            ps.setNull(6, Types.BIGINT);
+        }
+        ps.setTimestamp(7, Timestamp.valueOf(LocalDateTime.now()));
+        ps.setLong(8, m.getMemberId());
+        ps.setLong(9, m.getVersion());
+        ps.setString(10, TenantContext.current());
+    }
+
+    private List<MemberMutation> retryOf(List<MemberMutation> failed,
+                                         BiFunction<MemberMutation, Long, MemberMutation> onConflict,
+                                         List<Long> conflictedIds) {
+        Map<Long, Long> versions = currentVersions(failed.stream()
+                .map(MemberMutation::getMemberId)
+                .collect(Collectors.toList()));
+
+        List<MemberMutation> retry = new ArrayList<>();
+        for (MemberMutation m : failed) {
+            Long currentVersion = versions.get(m.getMemberId());
+            MemberMutation rebased = currentVersion == null ? null : onConflict.apply(m, currentVersion);
+            if (rebased == null) {
+                //삭제되었거나 다른 tenant 의 회원이거나 호출자가 재시도를 원하지 않는 경우
+                conflictedIds.add(m.getMemberId());
+            } else {
+                retry.add(rebased);
+            }
+        }
+        return retry;
+    }
+
+    private List<Long> teamsOfCurrentTenant(List<Long> ids) {
+        List<Long> found = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            found.addAll(namedParameterJdbcTemplate.queryForList(
+                    "select team_id from team where team_id in (:ids) and tenant_id = :tenantId",
+                    new MapSqlParameterSource()
+                            .addValue("ids", ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())))
+                            .addValue("tenantId", TenantContext.current()),
+                    Long.class));
+        }
+        return found;
+    }
+
+    private Map<Long, Long> currentVersions(List<Long> ids) {
+        Map<Long, Long> versions = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()));
+            namedParameterJdbcTemplate.query(
+                    "select member_id, version from member where member_id in (:ids) and tenant_id = :tenantId",
+                    new MapSqlParameterSource()
+                            .addValue("ids", chunk)
+                            .addValue("tenantId", TenantContext.current()),
+                    rs -> {
+                        versions.put(rs.getLong("member_id"), rs.getLong("version"));
+                    });
+        }
+        return versions;
+    }
+}
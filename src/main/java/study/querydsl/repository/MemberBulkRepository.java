@@ -0,0 +1,195 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.hibernate.HibernateQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchConditionPredicates;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberChangeType;
+import study.querydsl.entity.Team;
+import study.querydsl.tenant.TenantContext;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * 수십만 건 단위의 회원/팀 작업용. StatelessSession 을 쓰므로 1차 캐시, 스냅샷, dirty checking 이 없고
+ * 처리한 건수와 상관없이 메모리가 일정하다. 대신 엔티티 콜백, 지연 로딩, cascade 가 동작하지 않는다.
+ *
+ * 세션은 현재 트랜잭션의 커넥션 위에서 열리므로 변경 이력, 다른 JDBC 작업과 함께 커밋/롤백된다.
+ * 같은 트랜잭션의 EntityManager 에 변경이 남아 있다면 먼저 flush 해야 보인다.
+ */
+@Repository
+public class MemberBulkRepository {
+
+    static final int CHUNK_SIZE = 1000;
+
+    private final SessionFactory sessionFactory;
+    private final DataSource dataSource;
+    private final MemberChangeLogRepository changeLogRepository;
+
+    public MemberBulkRepository(EntityManagerFactory entityManagerFactory, DataSource dataSource,
+                                MemberChangeLogRepository changeLogRepository) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.dataSource = dataSource;
+        this.changeLogRepository = changeLogRepository;
+    }
+
+    /**
+     * 조건에 맞는 회원을 팀과 함께 id 순서로 하나씩 넘긴다. 넘겨받은 엔티티는 준영속이다.
+     *
+     * @return 넘긴 회원 수
+     */
+    @Transactional(readOnly = true)
+    public long forEach(MemberSearchCondition condition, Consumer<Member> action) {
+        return withSession(session -> {
+            //H2, PostgreSQL 은 fetch size 만큼만 읽어 온다. (MySQL 은 useCursorFetch=true 가 필요하다)
+            ScrollableResults results = new HibernateQuery<Member>(session)
+                    .select(member)
+                    .from(member)
+                    .leftJoin(member.team, team).fetchJoin()
+                    .where(member.tenantId.eq(TenantContext.current()))
+                    .where(MemberSearchConditionPredicates.of(condition))
+                    .orderBy(member.id.asc())
+                    .setFetchSize(CHUNK_SIZE)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+            long count = 0;
+            try {
+                while (results.next()) {
+                    action.accept((Member) results.get(0));
+                    count++;
+                }
+            } finally {
+                results.close();
+            }
+            return count;
+        });
+    }
+
+    /**
+     * 조건에 맞는 회원을 CHUNK_SIZE 씩 읽어 change 를 적용하고 batch update 한다.
+     * version 이 다른 회원이 있으면 StaleStateException 으로 전체가 롤백된다.
+     *
+     * @return 수정한 회원 수
+     */
+    @Transactional
+    public long update(MemberSearchCondition condition, Consumer<Member> change) {
+        return withSession(session -> {
+            long count = 0;
+            Long lastId = null;
+            while (true) {
+                List<Member> chunk = new HibernateQuery<Member>(session)
+                        .select(member)
+                        .from(member)
+                        .leftJoin(member.team, team).fetchJoin()
+                        .where(member.tenantId.eq(TenantContext.current()),
+                                lastId == null ? null : member.id.gt(lastId))
+                        .where(MemberSearchConditionPredicates.of(condition))
+                        .orderBy(member.id.asc())
+                        .limit(CHUNK_SIZE)
+                        .fetch();
+                if (chunk.isEmpty()) {
+                    return count;
+                }
+
+                List<Long> ids = new ArrayList<>(chunk.size());
+                for (Member m : chunk) {
+                    change.accept(m);
+                    //StatelessSession 은 @PreUpdate 를 부르지 않는다.
+                    m.touch();
+                    session.update(m);
+                    ids.add(m.getId());
+                }
+                executeBatch(session);
+                changeLogRepository.appendAll(ids, MemberChangeType.UPDATE);
+
+                count += chunk.size();
+                lastId = ids.get(ids.size() - 1);
+                if (chunk.size() < CHUNK_SIZE) {
+                    return count;
+                }
+            }
+        });
+    }
+
+    /**
+     * 팀은 회원보다 먼저 넣어야 한다. 넣은 엔티티에 id 와 version 이 채워진다.
+     */
+    @Transactional
+    public void insertTeams(Collection<Team> teams) {
+        withSession(session -> {
+            Set<String> tenantIds = new HashSet<>();
+            int pending = 0;
+            for (Team t : teams) {
+                t.prePersist();
+                session.insert(t);
+                tenantIds.add(t.getTenantId());
+                if (++pending % CHUNK_SIZE == 0) {
+                    executeBatch(session);
+                }
+            }
+            executeBatch(session);
+            //StatelessSession 은 엔티티 리스너도 부르지 않는다. 데이터 버전만 올리면 되므로 tenant 별로 한 건 남긴다.
+            for (String tenantId : tenantIds) {
+                changeLogRepository.append(tenantId, null, null, MemberChangeType.TEAM_CHANGE);
+            }
+            return null;
+        });
+    }
+
+    @Transactional
+    public void insertMembers(Collection<Member> members) {
+        withSession(session -> {
+            List<Long> ids = new ArrayList<>(CHUNK_SIZE);
+            for (Member m : members) {
+                m.prePersist();
+                session.insert(m);
+                ids.add(m.getId());
+                if (ids.size() == CHUNK_SIZE) {
+                    flushInserted(session, ids);
+                }
+            }
+            flushInserted(session, ids);
+            return null;
+        });
+    }
+
+    //엔티티 리스너가 불리지 않으므로 변경 이력은 여기서 남긴다.
+    private void flushInserted(StatelessSession session, List<Long> ids) {
+        executeBatch(session);
+        changeLogRepository.appendAll(ids, MemberChangeType.INSERT);
+        ids.clear();
+    }
+
+    //hibernate.jdbc.batch_size 만큼 모인 문장은 Hibernate 가 실행하지만, 남은 문장은 직접 내보내야 한다.
+    private static void executeBatch(StatelessSession session) {
+        ((SharedSessionContractImplementor) session).getJdbcCoordinator().executeBatch();
+    }
+
+    private <T> T withSession(Function<StatelessSession, T> work) {
+        StatelessSession session = sessionFactory.openStatelessSession(DataSourceUtils.getConnection(dataSource));
+        try {
+            return work.apply(session);
+        } finally {
+            //넘겨준 커넥션은 닫지 않는다. 트랜잭션이 끝날 때 Spring 이 돌려준다.
+            session.close();
+        }
+    }
+}
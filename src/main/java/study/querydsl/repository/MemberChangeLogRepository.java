@@ -0,0 +1,125 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberChangeBatch;
+import study.querydsl.dto.MemberChangeDto;
+import study.querydsl.dto.QMemberChangeDto;
+import study.querydsl.entity.MemberChangeType;
+import study.querydsl.support.DataVersion;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static study.querydsl.entity.QMemberChangeLog.memberChangeLog;
+
+/**
+ * 쓰기는 flush 도중(엔티티 리스너)에도 호출되므로 영속성 컨텍스트를 거치지 않고 JDBC 로 한다.
+ * 현재 트랜잭션의 커넥션을 그대로 쓰기 때문에 회원 변경과 같이 커밋/롤백된다.
+ * 기록할 때마다 같은 트랜잭션에서 해당 tenant 의 데이터 버전도 올린다.
+ *
+ * seq 는 insert 시점에 채번되므로 그대로 두면 늦게 커밋된 트랜잭션의 변경이 더 작은 seq 로 나중에 보인다.
+ * 그래서 이력을 넣기 전에 tenant 의 데이터 버전 행을 먼저 올려 잠근다. 같은 tenant 의 다음 writer 는
+ * 이 트랜잭션이 커밋될 때까지 seq 를 받지 못하므로, tenant 안에서는 seq 순서와 커밋 순서가 같다.
+ * tenant 사이에는 이 순서가 없으므로 피드는 tenant 별로만 읽는다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MemberChangeLogRepository {
+
+    static final int CHUNK_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final JPAQueryFactory queryFactory;
+    private final DataVersion dataVersion;
+
+    /**
+     * 팀 변경(TEAM_CHANGE)은 memberId 없이 teamId 만 남긴다.
+     */
+    public void append(String tenantId, Long memberId, Long teamId, MemberChangeType changeType) {
+        dataVersion.bump(tenantId);
+        jdbcTemplate.update(
+                "insert into member_change_log (tenant_id, member_id, team_id, change_type, changed_at) values (?, ?, ?, ?, ?)",
+                tenantId, memberId, teamId, changeType.name(), Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * 대량 변경 후 호출한다. team_id 는 변경이 끝난 현재 값으로 기록된다.
+     */
+    public void appendAll(Collection<Long> memberIds, MemberChangeType changeType) {
+        List<Long> ids = new ArrayList<>(memberIds);
+        Set<String> tenants = new TreeSet<>();
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            tenants.addAll(namedParameterJdbcTemplate.queryForList(
+                    "select distinct tenant_id from member where member_id in (:ids)",
+                    new MapSqlParameterSource("ids", ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()))),
+                    String.class));
+        }
+        //seq 를 받기 전에 잠근다. 여러 tenant 를 한 트랜잭션에서 잠글 때 교착이 없도록 정렬된 순서로 잠근다.
+        for (String tenantId : tenants) {
+            dataVersion.bump(tenantId);
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("ids", ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size())))
+                    .addValue("changeType", changeType.name())
+                    .addValue("changedAt", now);
+            namedParameterJdbcTemplate.update(
+                    "insert into member_change_log (tenant_id, member_id, team_id, change_type, changed_at)" +
+                    " select tenant_id, member_id, team_id, :changeType, :changedAt from member where member_id in (:ids)",
+                    params);
+        }
+    }
+
+    /**
+     * tenant 의 after 보다 큰 seq 의 변경을 seq 순서로 최대 size 건 돌려준다.
+     * 이미 보인 seq 보다 작은 seq 가 나중에 커밋되는 일은 없으므로 lastSeq 를 그대로 다음 cursor 로 써도 빠지는 변경이 없다.
+     * 팀 변경(TEAM_CHANGE)은 데이터 버전용이라 회원 변경 피드에는 싣지 않는다.
+     */
+    @Transactional(readOnly = true)
+    public MemberChangeBatch findChangesSince(String tenantId, long after, int size) {
+        List<MemberChangeDto> changes = queryFactory
+                .select(new QMemberChangeDto(
+                        memberChangeLog.seq,
+                        memberChangeLog.memberId,
+                        memberChangeLog.teamId,
+                        memberChangeLog.changeType,
+                        memberChangeLog.changedAt))
+                .from(memberChangeLog)
+                .where(memberChangeLog.seq.gt(after),
+                        memberChangeLog.memberId.isNotNull(),
+                        memberChangeLog.tenantId.eq(tenantId))
+                .orderBy(memberChangeLog.seq.asc())
+                .limit(size + 1)
+                .fetch();
+
+        boolean hasMore = changes.size() > size;
+        if (hasMore) {
+            changes = changes.subList(0, size);
+        }
+        long lastSeq = changes.isEmpty() ? after : changes.get(changes.size() - 1).getSeq();
+        return new MemberChangeBatch(changes, lastSeq, hasMore);
+    }
+
+    @Transactional(readOnly = true)
+    public long lastSeq() {
+        Long seq = queryFactory
+                .select(memberChangeLog.seq.max())
+                .from(memberChangeLog)
+                .fetchOne();
+        return seq == null ? 0L : seq;
+    }
+}
@@ -0,0 +1,76 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Expression;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * fields= 로 고를 수 있는 회원 검색 결과 필드. 이름은 MemberTeamDto 의 프로퍼티와 같다.
+ * teamId 는 member.team_id 컬럼을 그대로 읽으므로 team 조인이 필요 없다. (MemberQueryShaper)
+ */
+public enum MemberField {
+
+    MEMBER_ID("memberId", member.id, MemberTeamDto::getMemberId),
+    USERNAME("username", member.username, MemberTeamDto::getUsername),
+    AGE("age", member.age, MemberTeamDto::getAge),
+    TEAM_ID("teamId", member.team.id, MemberTeamDto::getTeamId),
+    TEAM_NAME("teamName", team.name, MemberTeamDto::getTeamName);
+
+    private final String fieldName;
+    private final Expression<?> expression;
+    private final Function<MemberTeamDto, Object> getter;
+
+    MemberField(String fieldName, Expression<?> expression, Function<MemberTeamDto, Object> getter) {
+        this.fieldName = fieldName;
+        this.expression = expression;
+        this.getter = getter;
+    }
+
+    public String fieldName() {
+        return fieldName;
+    }
+
+    public Expression<?> expression() {
+        return expression;
+    }
+
+    //archive 처럼 이미 DTO 로 읽힌 결과에서 값을 꺼낼 때 쓴다.
+    public Object valueOf(MemberTeamDto dto) {
+        return getter.apply(dto);
+    }
+
+    /**
+     * "memberId,username" 을 요청한 순서대로 돌려준다. 중복은 한 번만, 비어 있으면 전체 필드다.
+     */
+    public static List<MemberField> parse(String fields) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return Arrays.asList(values());
+        }
+        Set<MemberField> result = new LinkedHashSet<>();
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty()) {
+                result.add(of(trimmed));
+            }
+        }
+        return result.isEmpty() ? Arrays.asList(values()) : new ArrayList<>(result);
+    }
+
+    private static MemberField of(String fieldName) {
+        for (MemberField field : values()) {
+            if (field.fieldName.equals(fieldName)) {
+                return field;
+            }
+        }
+        throw new UnsupportedFieldException("선택할 수 없는 필드입니다: " + fieldName);
+    }
+}
@@ -2,18 +2,21 @@ package study.querydsl.repository;
 
 import antlr.StringUtils;
 import com.querydsl.core.BooleanBuilder;
-import com.querydsl.core.types.Predicate;
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.ExpressionUtils;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.stereotype.Repository;
-import org.springframework.util.ObjectUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchConditionPredicates;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.QTeam;
+import study.querydsl.tenant.TenantContext;
 
 import javax.persistence.EntityManager;
 import java.util.List;
@@ -23,48 +26,65 @@ import java.util.Optional;
 import static org.springframework.util.StringUtils.hasText;
 import static org.springframework.util.StringUtils.isEmpty;
 import static study.querydsl.entity.QMember.member;
+import static study.querydsl.repository.MemberTenantScope.tenantEq;
+import static study.querydsl.repository.MemberTenantScope.where;
 import static study.querydsl.entity.QTeam.team;
 
+//엔티티를 돌려주는 조회는 읽기 전용 트랜잭션일 때만 readOnly 힌트로 스냅샷을 만들지 않는다.
+//바깥 읽기/쓰기 트랜잭션에 합류했을 때 힌트를 주면 호출자가 고친 값이 flush 되지 않고 사라진다.
 @Repository
+@Transactional(readOnly = true)
 public class MemberJpaRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchGuard guard;
 
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em, MemberSearchGuard guard) {
         this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.guard = guard;
     }
 
+    @Transactional
     public void save(Member member){
         em.persist(member);
     }
 
     public Optional<Member> findById(Long id) {
         Member findMember = em.find(Member.class, id);
-        return Optional.ofNullable(findMember);
+        return Optional.ofNullable(findMember)
+                .filter(m -> m.getTenantId().equals(TenantContext.current()));
     }
 
     public List<Member> findAll() {
-        return em.createQuery("select m from Member m ", Member.class)
+        return em.createQuery("select m from Member m where m.tenantId = :tenantId", Member.class)
+                .setParameter("tenantId", TenantContext.current())
+                .setHint(QueryHints.HINT_READONLY, readOnlyTransaction())
                 .getResultList();
     }
 
     public List<Member> findByUsername(String username) {
         return em.createQuery(
-                "select m from Member m where username = :username"
-                ).setParameter("username", username)
+                "select m from Member m where m.tenantId = :tenantId and m.username = :username", Member.class)
+                .setParameter("tenantId", TenantContext.current())
+                .setParameter("username", username)
+                .setHint(QueryHints.HINT_READONLY, readOnlyTransaction())
                 .getResultList();
     }
 
     public List<Member> findAll_Querydsl() {
-        return queryFactory.selectFrom(member).fetch();
+        return queryFactory.selectFrom(member)
+                .where(tenantEq())
+                .setHint(QueryHints.HINT_READONLY, readOnlyTransaction())
+                .fetch();
     }
 
     public List<Member> findByUsername_Querydsl(String username) {
         return queryFactory
                 .selectFrom(member)
-                .where(member.username.eq(username))
+                .where(tenantEq(), member.username.eq(username))
+                .setHint(QueryHints.HINT_READONLY, readOnlyTransaction())
                 .fetch();
     }
 
@@ -72,82 +92,53 @@ public class MemberJpaRepository {
 
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
 
-        BooleanBuilder builder = new BooleanBuilder();
-        if(hasText(condition.getUsername())){
-            builder.and(member.username.eq(condition.getUsername()));
-        }
-        if(hasText(condition.getTeamName())){
-            builder.and(team.name.eq(condition.getTeamName()));
-        }
-        if(condition.getAgeGoe() != null) {
-            builder.and(member.age.goe(condition.getAgeGoe()));
-        }
-        if(condition.getAgeLoe() != null) {
-            builder.and(member.age.loe(condition.getAgeLoe()));
-        }
+        BooleanBuilder builder = new BooleanBuilder(tenantEq());
+        builder.and(ExpressionUtils.allOf(MemberSearchConditionPredicates.of(condition)));
 
-        return queryFactory
+        int limit = guard.limitFor(condition, Long.MAX_VALUE);
+        return guard.truncate(guard.execute(() -> guard.timeout(MemberQueryShaper.shape(queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
                         member.age,
                         team.id,
                         team.name))
-                .from(member)
-                .leftJoin(member.team,team)
-                .where(builder)
-                .fetch();
+                .from(member), builder)
+                .orderBy(member.id.asc())
+                .limit(limit + 1L))
+                .fetch()), limit);
     }
 
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
+        int limit = guard.limitFor(condition, Long.MAX_VALUE);
+        return guard.truncate(guard.execute(() -> guard.timeout(MemberQueryShaper.shape(queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
                         member.age,
                         team.id,
                         team.name
-                )).from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
-                .fetch();
-    }
-
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return !ObjectUtils.isEmpty(ageGoe) ? member.age.goe(ageGoe) : null;
+                )).from(member), where(condition))
+                .orderBy(member.id.asc())
+                .limit(limit + 1L))
+                .fetch()), limit);
     }
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return !ObjectUtils.isEmpty(ageLoe) ? member.age.loe(ageLoe) : null;
-    }
 
     public List<Member> findMember(MemberSearchCondition condition) {
-        return queryFactory
+        int limit = guard.limitFor(condition, Long.MAX_VALUE);
+        //팀 이름으로 찾을 때만 조인된다. 회원 엔티티만 돌려주므로 팀은 지연 로딩이다.
+        return guard.truncate(guard.execute(() -> guard.timeout(MemberQueryShaper.shape(queryFactory
                 .select(member)
-                .from(member)
-                .leftJoin(member.team,team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
-                .fetch();
+                .from(member), where(condition))
+                .setHint(QueryHints.HINT_READONLY, readOnlyTransaction())
+                .orderBy(member.id.asc())
+                .limit(limit + 1L))
+                .fetch()), limit);
 
     }
 
-
-
-
-
-
+    private static boolean readOnlyTransaction() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
 }
@@ -0,0 +1,96 @@
+package study.querydsl.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchConditionPredicates;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.tenant.TenantContext;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * MemberRepositoryImpl.search 와 같은 결과를 SQL 로 직접 읽는다. (hot 테이블만)
+ * JPQL 변환과 DTO 생성자 호출이 없어서 결과가 많은 검색에서 유리할 수 있다.
+ * 조인은 MemberQueryShaper 와 같은 규칙으로 붙인다.
+ * 조건은 직접 만들기 때문에 CONDITION_FIELDS 에 없는 조건이 채워진 검색은 받지 않는다.
+ * MemberSearchCondition 에 조건이 추가되면 여기와 MemberSnapshot 을 고치기 전까지는 JPA 로만 검색된다.
+ */
+@Repository
+@Transactional(readOnly = true)
+public class MemberNativeSearch {
+
+    public static final Set<String> CONDITION_FIELDS = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList("username", "teamName", "ageGoe", "ageLoe")));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final MemberSearchGuard guard;
+
+    public MemberNativeSearch(DataSource dataSource, MemberSearchGuard guard,
+                              MemberSearchGuardProperties guardProperties) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setQueryTimeout((int) Math.max(1, guardProperties.getQueryTimeout().getSeconds()));
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(template);
+        this.guard = guard;
+    }
+
+    public boolean supports(MemberSearchCondition condition) {
+        return CONDITION_FIELDS.containsAll(MemberSearchConditionPredicates.conditionFields(condition));
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        if (!supports(condition)) {
+            throw new IllegalArgumentException("지원하지 않는 검색 조건입니다: "
+                    + MemberSearchConditionPredicates.conditionFields(condition));
+        }
+        int limit = guard.limitFor(condition, Long.MAX_VALUE);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tenantId", TenantContext.current())
+                .addValue("limit", limit + 1);
+
+        //팀 이름 조건이 있으면 팀 없는 회원은 어차피 빠지므로 inner join 이다.
+        StringBuilder sql = new StringBuilder(
+                "select m.member_id, m.username, m.age, m.team_id, t.name as team_name from member m");
+        sql.append(hasText(condition.getTeamName()) ? " join" : " left join");
+        sql.append(" team t on t.team_id = m.team_id where m.tenant_id = :tenantId");
+        if (hasText(condition.getUsername())) {
+            sql.append(" and m.username = :username");
+            params.addValue("username", condition.getUsername());
+        }
+        if (hasText(condition.getTeamName())) {
+            sql.append(" and t.name = :teamName");
+            params.addValue("teamName", condition.getTeamName());
+        }
+        if (condition.getAgeGoe() != null) {
+            sql.append(" and m.age >= :ageGoe");
+            params.addValue("ageGoe", condition.getAgeGoe());
+        }
+        if (condition.getAgeLoe() != null) {
+            sql.append(" and m.age <= :ageLoe");
+            params.addValue("ageLoe", condition.getAgeLoe());
+        }
+        //JPA 경로와 같은 순서로 잘라야 결과가 같다.
+        sql.append(" order by m.member_id limit :limit");
+
+        return guard.truncate(guard.execute(() -> jdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> {
+            long teamId = rs.getLong("team_id");
+            Long nullableTeamId = rs.wasNull() ? null : teamId;
+            return new MemberTeamDto(
+                    rs.getLong("member_id"),
+                    rs.getString("username"),
+                    rs.getInt("age"),
+                    nullableTeamId,
+                    rs.getString("team_name"));
+        })), limit);
+    }
+}
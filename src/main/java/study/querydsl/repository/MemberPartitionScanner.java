@@ -0,0 +1,243 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.tenant.TenantContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.MemberTenantScope.tenantEq;
+
+/**
+ * 회원 전체를 id 구간으로 나눠 병렬로 읽는 배치용 스캔.
+ * 구간마다 별도 스레드에서 chunk 단위 읽기 전용 트랜잭션(= 별도 커넥션)으로 keyset 조회를 하고,
+ * 읽은 chunk 는 호출한 스레드에서 consumer 로 넘긴다. consumer 는 스레드 안전할 필요가 없다.
+ * 검색 API 가 아니므로 guard 의 row 상한은 적용하지 않는다.
+ * 호출한 스레드의 tenant 만 읽는다. 구간 스레드에는 TenantContext 가 없으므로 tenant 를 넘겨준다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberPartitionScanner {
+
+    private final JPAQueryFactory queryFactory;
+    private final PlatformTransactionManager transactionManager;
+    private final MemberScanProperties properties;
+
+    public enum Delivery {
+        //id 오름차순으로 넘긴다. 앞 구간이 느리면 뒤 구간은 큐가 차서 기다린다.
+        ORDERED,
+        //먼저 읽힌 chunk 부터 넘긴다.
+        UNORDERED
+    }
+
+    public long scan(Delivery delivery, Consumer<List<MemberTeamDto>> consumer) {
+        return scan(properties.getParallelism(), delivery, consumer);
+    }
+
+    /**
+     * @return consumer 로 넘긴 회원 수
+     */
+    public long scan(int parallelism, Delivery delivery, Consumer<List<MemberTeamDto>> consumer) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism 은 1 이상이어야 합니다: " + parallelism);
+        }
+        String tenantId = TenantContext.current();
+        List<Range> ranges = partition(tenantId, parallelism * properties.getPartitionsPerThread());
+        if (ranges.isEmpty()) {
+            return 0;
+        }
+
+        List<BlockingQueue<Chunk>> queues = new ArrayList<>();
+        if (delivery == Delivery.ORDERED) {
+            for (int i = 0; i < ranges.size(); i++) {
+                queues.add(new ArrayBlockingQueue<>(properties.getQueueCapacity()));
+            }
+        } else {
+            BlockingQueue<Chunk> shared = new ArrayBlockingQueue<>(properties.getQueueCapacity() * parallelism);
+            queues.addAll(Collections.nCopies(ranges.size(), shared));
+        }
+
+        //구간은 제출한 순서대로 시작되므로 ORDERED 에서 소비자가 기다리는 구간은 항상 실행 중이거나 끝나 있다.
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new ScanThreadFactory());
+        try {
+            for (int i = 0; i < ranges.size(); i++) {
+                Range range = ranges.get(i);
+                BlockingQueue<Chunk> queue = queues.get(i);
+                executor.execute(() -> read(tenantId, range, queue));
+            }
+            return delivery == Delivery.ORDERED
+                    ? drainInOrder(queues, consumer)
+                    : drain(queues.get(0), ranges.size(), consumer);
+        } finally {
+            //consumer 나 다른 구간이 실패했다면 큐에서 막혀 있는 스레드를 깨워 끝낸다.
+            executor.shutdownNow();
+        }
+    }
+
+    //min ~ max id 를 같은 폭으로 나눈다. id 는 시퀀스라서 대체로 고르게 퍼져 있다.
+    List<Range> partition(String tenantId, int count) {
+        Tuple bounds = readOnlyTx().execute(status -> queryFactory
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .where(tenantEq(tenantId))
+                .fetchOne());
+        Long min = bounds == null ? null : bounds.get(member.id.min());
+        Long max = bounds == null ? null : bounds.get(member.id.max());
+        if (min == null || max == null) {
+            return Collections.emptyList();
+        }
+
+        long span = max - min + 1;
+        long width = Math.max(1, (span + count - 1) / count);
+        List<Range> ranges = new ArrayList<>();
+        for (long from = min; from <= max; from += width) {
+            ranges.add(new Range(from, Math.min(from + width - 1, max)));
+        }
+        return ranges;
+    }
+
+    private void read(String tenantId, Range range, BlockingQueue<Chunk> queue) {
+        TransactionTemplate tx = readOnlyTx();
+        try {
+            Long lastId = range.from - 1;
+            while (true) {
+                Long after = lastId;
+                List<MemberTeamDto> rows = tx.execute(status -> queryFactory
+                        .select(new QMemberTeamDto(
+                                member.id,
+                                member.username,
+                                member.age,
+                                team.id,
+                                team.name))
+                        .from(member)
+                        .leftJoin(member.team, team)
+                        .where(tenantEq(tenantId),
+                                member.id.gt(after),
+                                member.id.loe(range.to))
+                        .orderBy(member.id.asc())
+                        .limit(properties.getChunkSize())
+                        .fetch());
+                if (rows == null || rows.isEmpty()) {
+                    break;
+                }
+                queue.put(Chunk.rows(rows));
+                if (rows.size() < properties.getChunkSize()) {
+                    break;
+                }
+                lastId = rows.get(rows.size() - 1).getMemberId();
+            }
+            queue.put(Chunk.END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error e) {
+            //소비자가 이미 그만뒀다면 shutdownNow 로 인터럽트되어 빠져나온다.
+            try {
+                queue.put(Chunk.failed(e));
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private long drainInOrder(List<BlockingQueue<Chunk>> queues, Consumer<List<MemberTeamDto>> consumer) {
+        long total = 0;
+        for (BlockingQueue<Chunk> queue : queues) {
+            total += drain(queue, 1, consumer);
+        }
+        return total;
+    }
+
+    private long drain(BlockingQueue<Chunk> queue, int partitions, Consumer<List<MemberTeamDto>> consumer) {
+        long total = 0;
+        int remaining = partitions;
+        while (remaining > 0) {
+            Chunk chunk = take(queue);
+            if (chunk.error != null) {
+                throw new IllegalStateException("회원 구간 스캔에 실패했습니다.", chunk.error);
+            }
+            if (chunk == Chunk.END) {
+                remaining--;
+                continue;
+            }
+            consumer.accept(chunk.rows);
+            total += chunk.rows.size();
+        }
+        return total;
+    }
+
+    private static Chunk take(BlockingQueue<Chunk> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("회원 구간 스캔이 중단되었습니다.", e);
+        }
+    }
+
+    private TransactionTemplate readOnlyTx() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        return tx;
+    }
+
+    static class Range {
+
+        final long from;
+        final long to;
+
+        Range(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private static class Chunk {
+
+        static final Chunk END = new Chunk(null, null);
+
+        final List<MemberTeamDto> rows;
+        final Throwable error;
+
+        private Chunk(List<MemberTeamDto> rows, Throwable error) {
+            this.rows = rows;
+            this.error = error;
+        }
+
+        static Chunk rows(List<MemberTeamDto> rows) {
+            return new Chunk(rows, null);
+        }
+
+        static Chunk failed(Throwable error) {
+            return new Chunk(null, error);
+        }
+    }
+
+    private static class ScanThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "member-scan-" + SEQUENCE.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
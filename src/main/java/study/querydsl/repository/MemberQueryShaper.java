@@ -0,0 +1,118 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/**
+ * member 기준 쿼리에 team 조인을 필요한 만큼만 붙인다.
+ * select 나 where 에 team 경로가 없으면 조인하지 않고, where 가 team 컬럼을 null 이 아닌 값과 비교하면
+ * (team.name = ? 처럼 팀 없는 회원이 어차피 걸러지면) inner join, 나머지는 left join 이다.
+ * member.team.id 는 team_id 컬럼이라 team 경로로 보지 않는다.
+ */
+final class MemberQueryShaper {
+
+    //첫 인자가 null 이면 결과가 null 이 되어 where 에서 걸러지는 연산자
+    private static final Set<Operator> NULL_REJECTING = new HashSet<>(Arrays.<Operator>asList(
+            Ops.EQ, Ops.NE, Ops.LT, Ops.GT, Ops.LOE, Ops.GOE, Ops.BETWEEN, Ops.IN, Ops.NOT_IN,
+            Ops.EQ_IGNORE_CASE, Ops.LIKE, Ops.LIKE_IC, Ops.LIKE_ESCAPE, Ops.LIKE_ESCAPE_IC,
+            Ops.STARTS_WITH, Ops.STARTS_WITH_IC, Ops.ENDS_WITH, Ops.ENDS_WITH_IC,
+            Ops.STRING_CONTAINS, Ops.STRING_CONTAINS_IC, Ops.IS_NOT_NULL));
+
+    private MemberQueryShaper() {
+    }
+
+    /**
+     * from(member) 까지 만든 query 에 조인과 where 를 붙인다. select 는 이미 정해져 있어야 한다.
+     */
+    static <T> JPAQuery<T> shape(JPAQuery<T> query, Predicate... where) {
+        TeamJoin join = joinFor(query.getMetadata().getProjection(), where);
+        if (join == TeamJoin.INNER) {
+            query.join(member.team, team);
+        } else if (join == TeamJoin.LEFT) {
+            query.leftJoin(member.team, team);
+        }
+        return query.where(where);
+    }
+
+    static TeamJoin joinFor(Expression<?> projection, Predicate... where) {
+        boolean referenced = references(projection);
+        for (Predicate predicate : where) {
+            if (rejectsNullTeam(predicate)) {
+                return TeamJoin.INNER;
+            }
+            referenced |= references(predicate);
+        }
+        return referenced ? TeamJoin.LEFT : TeamJoin.NONE;
+    }
+
+    //AND 로 이어진 조건 중 하나라도 team 컬럼의 null 을 걸러내면 된다. OR, NOT 아래는 보지 않는다.
+    private static boolean rejectsNullTeam(Expression<?> predicate) {
+        Expression<?> e = unwrap(predicate);
+        if (!(e instanceof Operation)) {
+            return false;
+        }
+        Operation<?> operation = (Operation<?>) e;
+        if (operation.getOperator() == Ops.AND) {
+            for (Expression<?> arg : operation.getArgs()) {
+                if (rejectsNullTeam(arg)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return NULL_REJECTING.contains(operation.getOperator())
+                && isTeamPath(operation.getArg(0));
+    }
+
+    private static boolean references(Expression<?> expression) {
+        Expression<?> e = unwrap(expression);
+        if (e == null) {
+            return false;
+        }
+        if (e instanceof Path) {
+            return isTeamPath(e);
+        }
+        if (e instanceof Operation) {
+            for (Expression<?> arg : ((Operation<?>) e).getArgs()) {
+                if (references(arg)) {
+                    return true;
+                }
+            }
+        }
+        if (e instanceof FactoryExpression) {
+            for (Expression<?> arg : ((FactoryExpression<?>) e).getArgs()) {
+                if (references(arg)) {
+                    return true;
+                }
+            }
+        }
+        //서브쿼리는 자기 from 이 따로 있다.
+        return false;
+    }
+
+    private static boolean isTeamPath(Expression<?> e) {
+        return e instanceof Path && team.equals(((Path<?>) e).getRoot());
+    }
+
+    private static Expression<?> unwrap(Expression<?> e) {
+        return e instanceof BooleanBuilder ? ((BooleanBuilder) e).getValue() : e;
+    }
+
+    enum TeamJoin {
+        NONE, LEFT, INNER
+    }
+}
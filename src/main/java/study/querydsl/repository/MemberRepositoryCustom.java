@@ -1,19 +1,56 @@
 package study.querydsl.repository;
 
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAUpdateClause;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface MemberRepositoryCustom {
 
     List<MemberTeamDto> search(MemberSearchCondition condition);
 
+    /**
+     * searchPageSimple 은 hot 테이블만 본다. includeArchived 는 search, searchPageComplex 에서만 쓰인다.
+     */
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
 
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
 
+    /**
+     * search 와 같지만 fields 의 컬럼만 읽어서 필드 이름 -> 값 으로 돌려준다.
+     * teamName 을 고르거나 팀 이름으로 찾을 때만 team 을 조인한다.
+     */
+    List<Map<String, Object>> searchFields(MemberSearchCondition condition, List<MemberField> fields);
+
+    /**
+     * includeArchived 면 searchPageComplex 처럼 hot 전체 뒤에 archive 를 이어 붙인다.
+     */
+    Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, List<MemberField> fields, Pageable pageable);
+
+    /**
+     * 팀 회원을 member_id 순서로 lastMemberId 다음부터 size 건 읽는다. 첫 페이지는 lastMemberId 를 null 로 넘긴다.
+     */
+    List<MemberTeamDto> findTeamMembers(Long teamId, Long lastMemberId, int size);
+
+    /**
+     * where 에 걸리는 회원을 벌크 수정하고 변경 이력을 같은 트랜잭션에 남긴다.
+     * 영속성 컨텍스트는 비워진다.
+     */
+    long bulkUpdate(Predicate where, Consumer<JPAUpdateClause> assignments);
+
+    /**
+     * id 목록이 아무리 커도 고정 크기 IN 절로 나눠 조회한다. 중복 id 는 한 번만 읽고, 없는 id 는 무시한다.
+     * 읽기 전용 트랜잭션에서만 엔티티를 읽기 전용으로 읽는다. 읽기/쓰기 트랜잭션 안에서 호출하면 고친 값이 그대로 반영된다.
+     */
+    List<Member> findAllByIds(Collection<Long> ids);
+
 
 }
@@ -1,66 +1,105 @@
 package study.querydsl.repository;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
-import org.springframework.util.ObjectUtils;
-import org.springframework.util.StringUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.dto.SearchShape;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberChangeType;
+import study.querydsl.support.SingleFlight;
+import study.querydsl.tenant.TenantContext;
 
 import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static study.querydsl.entity.QMember.member;
+import static study.querydsl.repository.MemberTenantScope.tenantEq;
+import static study.querydsl.repository.MemberTenantScope.where;
 import static study.querydsl.entity.QTeam.*;
 
+/**
+ * 조회 메서드는 읽기 전용 트랜잭션으로 실행된다. 바깥 트랜잭션이 없으면 Hibernate 세션이 FlushMode.MANUAL,
+ * defaultReadOnly 로 열려서 flush, dirty checking, 엔티티 스냅샷이 생기지 않는다.
+ * 바깥 읽기/쓰기 트랜잭션에 합류할 때는 이 설정이 적용되지 않고, 엔티티도 호출자가 고칠 수 있어야 하므로 readOnly 힌트를 주지 않는다.
+ */
+@Transactional(readOnly = true)
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private static final int BULK_CHUNK_SIZE = 1000;
+    private static final int FLIGHT_PAGE_BUCKETS = 10;
+
+    //2의 거듭제곱으로 두어야 in_clause_parameter_padding 으로 만들어지는 SQL 모양이 이 크기를 넘지 않는다.
+    static final int IN_CHUNK_SIZE = 512;
+
+    private final EntityManager em;
     private final JPAQueryFactory queryFactory;
-    public MemberRepositoryImpl(EntityManager em){
+    private final MemberChangeLogRepository changeLogRepository;
+    private final MemberSearchGuard guard;
+    private final MemberArchiveRepository archiveRepository;
+    private final SingleFlight<List<Object>, Page<MemberTeamDto>> searchPageFlight;
+
+    public MemberRepositoryImpl(EntityManager em, MemberChangeLogRepository changeLogRepository,
+                                MemberSearchGuard guard, MemberArchiveRepository archiveRepository,
+                                MeterRegistry meterRegistry){
+        this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.changeLogRepository = changeLogRepository;
+        this.guard = guard;
+        this.archiveRepository = archiveRepository;
+        this.searchPageFlight = new SingleFlight<>("member.searchPageComplex", meterRegistry);
     }
 
 
+    //조건이 비어 있어도 테이블 전체를 읽지 않도록 guard 의 row 상한을 건다.
+    //id 순서로 잘라야 MemberNativeSearch, 스냅샷과 같은 결과가 된다.
+    //상한보다 한 건 더 읽어서 실제로 잘렸을 때만 guard 가 센다.
+    //includeArchived 면 남은 상한만큼 archive 를 이어서 읽는다.
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
+        int limit = guard.limitFor(condition, Long.MAX_VALUE);
+        List<MemberTeamDto> hot = guard.execute(() -> guard.timeout(MemberQueryShaper.shape(queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
                         member.age,
                         team.id,
                         team.name))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                ).fetch();
+                .from(member), where(condition))
+                .orderBy(member.id.asc())
+                .limit(limit + 1L))
+                .fetch());
 
-    }
-    private BooleanExpression usernameEq(String username) {
-        return StringUtils.hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return StringUtils.hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return !ObjectUtils.isEmpty(ageGoe) ? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return !ObjectUtils.isEmpty(ageLoe) ? member.age.loe(ageLoe) : null;
+        if (!condition.isIncludeArchived() || hot.size() >= limit) {
+            return guard.truncate(hot, limit);
+        }
+        List<MemberTeamDto> result = new ArrayList<>(hot);
+        result.addAll(archiveRepository.search(condition, 0, limit - hot.size() + 1));
+        return guard.truncate(result, limit);
     }
 
 
@@ -68,56 +107,240 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
 
-        QueryResults<MemberTeamDto> results = queryFactory
+        //상한보다 큰 페이지는 크기를 줄인 페이지로 바꾼다. offset 도 줄인 크기로 계산해야 건너뛰는 행이 없다.
+        Pageable page = guard.pageFor(condition, pageable);
+        int limit = page.getPageSize();
+        QueryResults<MemberTeamDto> results = guard.execute(() -> guard.timeout(MemberQueryShaper.shape(queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
                         member.age,
                         team.id,
                         team.name
-                )).from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetchResults();
+                )).from(member), where(condition))
+                .orderBy(MemberSortTranslator.orderBy(page.getSort()))
+                .offset(page.getOffset())
+                .limit(limit))
+                .fetchResults());
         //사용 불가 하다
         List<MemberTeamDto> content = results.getResults();
         long total = results.getTotal();
-        return new PageImpl<>(content, pageable, total);
+        return new PageImpl<>(content, page, total);
 
     }
 
+    //같은 조건, 같은 페이지로 동시에 들어온 요청은 쿼리를 한 번만 실행하고 결과를 나눠 받는다.
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return searchPageFlight.execute(searchKey(condition, pageable), searchDimension(condition, pageable),
+                () -> doSearchPageComplex(condition, pageable));
+    }
+
+    //메트릭 태그용. 조건 값 대신 모양을 쓰고 뒤쪽 페이지는 한 묶음으로 본다.
+    private static String searchDimension(MemberSearchCondition condition, Pageable pageable) {
+        int page = pageable.getPageNumber();
+        String bucket = page < FLIGHT_PAGE_BUCKETS ? String.valueOf(page) : FLIGHT_PAGE_BUCKETS + "+";
+        return SearchShape.of(condition) + ":page" + bucket;
+    }
+
+    private Page<MemberTeamDto> doSearchPageComplex(MemberSearchCondition condition, Pageable pageable) {
 
-        List<MemberTeamDto> content = queryFactory
+        //상한보다 큰 페이지는 크기를 줄인 페이지로 바꾼다. offset 도 줄인 크기로 계산해야 건너뛰는 행이 없다.
+        Pageable page = guard.pageFor(condition, pageable);
+        int limit = page.getPageSize();
+        List<MemberTeamDto> content = guard.execute(() -> guard.timeout(MemberQueryShaper.shape(queryFactory
                 .select(new QMemberTeamDto(
                         member.id,
                         member.username,
                         member.age,
                         team.id,
                         team.name))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
-                .fetch();
+                .from(member), where(condition))
+                .orderBy(MemberSortTranslator.orderBy(page.getSort()))
+                .offset(page.getOffset())
+                .limit(limit))
+                .fetch());
+
+        //count 는 select 에 team 이 없으므로 팀 이름 조건이 있을 때만 조인된다.
+        JPAQuery<Long> countQuery = guard.timeout(MemberQueryShaper.shape(queryFactory
+                .select(member.count())
+                .from(member), where(condition)));
+
+
+        if (condition.isIncludeArchived()) {
+            return appendArchive(condition, page, limit, content, guard.execute(countQuery::fetchOne), Function.identity());
+        }
+        return PageableExecutionUtils.getPage(content, page, () -> guard.execute(countQuery::fetchOne));
+    }
+
+    @Override
+    public List<Map<String, Object>> searchFields(MemberSearchCondition condition, List<MemberField> fields) {
+        int limit = guard.limitFor(condition, Long.MAX_VALUE);
+        List<Tuple> hot = guard.execute(() -> guard.timeout(fieldsQuery(condition, fields)
+                .orderBy(member.id.asc())
+                .limit(limit + 1L))
+                .fetch());
+
+        List<Map<String, Object>> result = new ArrayList<>(hot.size());
+        for (Tuple tuple : hot) {
+            result.add(toMap(fields, tuple));
+        }
+        if (!condition.isIncludeArchived() || hot.size() >= limit) {
+            return guard.truncate(result, limit);
+        }
+        //archive 는 행 수가 적으므로 전체 컬럼을 읽고 고른 필드만 남긴다.
+        for (MemberTeamDto dto : archiveRepository.search(condition, 0, limit - hot.size() + 1)) {
+            result.add(toMap(fields, dto));
+        }
+        return guard.truncate(result, limit);
+    }
+
+    @Override
+    public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, List<MemberField> fields,
+                                                      Pageable pageable) {
+        //상한보다 큰 페이지는 크기를 줄인 페이지로 바꾼다. offset 도 줄인 크기로 계산해야 건너뛰는 행이 없다.
+        Pageable page = guard.pageFor(condition, pageable);
+        int limit = page.getPageSize();
+        List<Tuple> rows = guard.execute(() -> guard.timeout(fieldsQuery(condition, fields)
+                .orderBy(MemberSortTranslator.orderBy(page.getSort()))
+                .offset(page.getOffset())
+                .limit(limit))
+                .fetch());
+
+        List<Map<String, Object>> content = new ArrayList<>(rows.size());
+        for (Tuple tuple : rows) {
+            content.add(toMap(fields, tuple));
+        }
 
-        JPAQuery<Long> countQuery = queryFactory
+        JPAQuery<Long> countQuery = guard.timeout(MemberQueryShaper.shape(queryFactory
                 .select(member.count())
+                .from(member), where(condition)));
+        if (condition.isIncludeArchived()) {
+            return appendArchive(condition, page, limit, content, guard.execute(countQuery::fetchOne),
+                    dto -> toMap(fields, dto));
+        }
+        return PageableExecutionUtils.getPage(content, page, () -> guard.execute(countQuery::fetchOne));
+    }
+
+    private JPAQuery<Tuple> fieldsQuery(MemberSearchCondition condition, List<MemberField> fields) {
+        Expression<?>[] select = new Expression<?>[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            select[i] = fields.get(i).expression();
+        }
+        return MemberQueryShaper.shape(queryFactory
+                .select(select)
+                .from(member), where(condition));
+    }
+
+    private static Map<String, Object> toMap(List<MemberField> fields, Tuple tuple) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (MemberField field : fields) {
+            row.put(field.fieldName(), tuple.get(field.expression()));
+        }
+        return row;
+    }
+
+    private static Map<String, Object> toMap(List<MemberField> fields, MemberTeamDto dto) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (MemberField field : fields) {
+            row.put(field.fieldName(), field.valueOf(dto));
+        }
+        return row;
+    }
+
+    //archive 는 hot 전체 뒤에 이어지는 것으로 본다. hot 을 넘어선 offset 만큼 archive 에서 건너뛴다.
+    private <T> Page<T> appendArchive(MemberSearchCondition condition, Pageable pageable, int limit,
+                                      List<T> hot, long hotTotal, Function<MemberTeamDto, T> mapper) {
+        List<T> content = new ArrayList<>(hot);
+        int remaining = limit - hot.size();
+        if (remaining > 0) {
+            long archiveOffset = Math.max(0, pageable.getOffset() - hotTotal);
+            for (MemberTeamDto dto : archiveRepository.search(condition, archiveOffset, remaining)) {
+                content.add(mapper.apply(dto));
+            }
+        }
+        return new PageImpl<>(content, pageable, hotTotal + archiveRepository.count(condition));
+    }
+
+    //offset 대신 마지막 id 다음부터 읽어서 뒤 페이지로 갈수록 느려지지 않는다. (team_id, member_id) 인덱스를 탄다.
+    @Override
+    public List<MemberTeamDto> findTeamMembers(Long teamId, Long lastMemberId, int size) {
+        int limit = guard.limitFor(size);
+        return guard.execute(() -> guard.timeout(queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .join(member.team, team)
+                .where(tenantEq(),
+                        member.team.id.eq(teamId),
+                        memberIdGt(lastMemberId))
+                .orderBy(member.id.asc())
+                .limit(limit))
+                .fetch());
+    }
+
+    private BooleanExpression memberIdGt(Long lastMemberId) {
+        return lastMemberId != null ? member.id.gt(lastMemberId) : null;
+    }
+
+    //id 를 먼저 확정해 두고 같은 id 로 수정/이력 기록을 하므로 중간에 끼어든 row 가 이력에서 빠지지 않는다.
+    //수정된 회원은 활동한 것으로 보고 last_active_at 도 갱신한다.
+    @Override
+    @Transactional
+    public long bulkUpdate(Predicate where, Consumer<JPAUpdateClause> assignments) {
+        List<Long> ids = queryFactory
+                .select(member.id)
                 .from(member)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()));
+                .where(tenantEq(), where)
+                .fetch();
 
+        LocalDateTime now = LocalDateTime.now();
+        long count = 0;
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size()));
+            JPAUpdateClause update = queryFactory
+                    .update(member)
+                    .set(member.version, member.version.add(1))
+                    .set(member.lastActiveAt, now)
+                    .where(member.id.in(chunk));
+            assignments.accept(update);
+            count += update.execute();
+            changeLogRepository.appendAll(chunk, MemberChangeType.BULK_UPDATE);
+        }
+
+        em.clear();
+        return count;
+    }
+
+    //마지막 chunk 도 padding 되므로 id 개수와 상관없이 SQL 은 최대 10 가지(1, 2, 4 ... 512) 모양만 나온다.
+    @Override
+    public List<Member> findAllByIds(Collection<Long> ids) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<Member> result = new ArrayList<>(distinct.size());
+        for (int from = 0; from < distinct.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = distinct.subList(from, Math.min(from + IN_CHUNK_SIZE, distinct.size()));
+            result.addAll(queryFactory
+                    .selectFrom(member)
+                    .where(tenantEq(), member.id.in(chunk))
+                    .setHint(QueryHints.HINT_READONLY, TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+                    .fetch());
+        }
+        return result;
+    }
 
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    //condition 은 가변 객체라서 값만 복사해 key 로 쓴다.
+    private List<Object> searchKey(MemberSearchCondition condition, Pageable pageable) {
+        return Arrays.asList(
+                TenantContext.current(),
+                condition.getUsername(),
+                condition.getTeamName(),
+                condition.getAgeGoe(),
+                condition.getAgeLoe(),
+                condition.isIncludeArchived(),
+                pageable);
     }
 }
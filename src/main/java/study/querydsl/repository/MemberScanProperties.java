@@ -0,0 +1,22 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "member.scan")
+public class MemberScanProperties {
+
+    //동시에 읽는 구간 수. 구간마다 커넥션을 하나씩 쓰므로 커넥션 풀 크기보다 작아야 한다.
+    private int parallelism = 4;
+
+    //id 구간을 parallelism 의 몇 배로 나눌지. 구간을 잘게 나눠야 id 가 몰린 구간이 전체를 붙잡지 않는다.
+    private int partitionsPerThread = 4;
+
+    //한 번의 쿼리로 읽는 row 수
+    private int chunkSize = 1000;
+
+    //소비자가 느릴 때 구간별로 쌓아 둘 수 있는 chunk 수
+    private int queueCapacity = 4;
+}
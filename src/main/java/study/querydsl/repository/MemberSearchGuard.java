@@ -0,0 +1,117 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+
+import javax.persistence.QueryTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 회원 검색 쿼리에 row 상한, 타임아웃, 선택도 낮은 조건 차단을 적용한다.
+ * 규칙이 발동할 때마다 member.search.guard{rule=...} 카운터가 올라간다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberSearchGuard {
+
+    private static final String TIMEOUT_HINT = "javax.persistence.query.timeout";
+
+    private final MemberSearchGuardProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 요청한 row 수를 조건과 설정에 맞게 줄여서 돌려준다.
+     */
+    public int limitFor(MemberSearchCondition condition, long requested) {
+        long limit = requested;
+        if (isUnselective(condition)) {
+            switch (properties.getUnselective()) {
+                case REJECT:
+                    triggered("unselective_rejected");
+                    throw new UnselectiveSearchException(
+                            "username, teamName 또는 좁은 나이 범위(" + properties.getMaxAgeSpan() + ") 중 하나는 필요합니다.");
+                case DOWNGRADE:
+                    if (limit > properties.getDowngradeRows()) {
+                        triggered("unselective_downgraded");
+                        limit = properties.getDowngradeRows();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return limitFor(limit);
+    }
+
+    //상한만 정한다. 실제로 잘렸는지는 쿼리 결과를 봐야 알 수 있으므로 max_rows 는 truncate 에서 센다.
+    public int limitFor(long requested) {
+        return (int) Math.min(requested, properties.getMaxRows());
+    }
+
+    /**
+     * limit + 1 건까지 읽은 결과를 limit 건으로 자른다.
+     * 결과가 max rows 상한을 실제로 넘었을 때만 max_rows 카운터가 올라간다.
+     */
+    public <T> List<T> truncate(List<T> rows, int limit) {
+        if (rows.size() <= limit) {
+            return rows;
+        }
+        if (limit >= properties.getMaxRows()) {
+            triggered("max_rows");
+        }
+        return new ArrayList<>(rows.subList(0, limit));
+    }
+
+    /**
+     * 페이지 크기를 limitFor 로 줄인 Pageable 을 돌려준다. 줄었다면 offset 과 응답의 페이지 정보도 줄인 크기를 따른다.
+     * max rows 때문에 줄었으면 max_rows 를 센다. (선택도 낮은 조건으로 줄인 것은 limitFor 가 이미 센다)
+     */
+    public Pageable pageFor(MemberSearchCondition condition, Pageable pageable) {
+        int size = limitFor(condition, pageable.getPageSize());
+        if (size == pageable.getPageSize()) {
+            return pageable;
+        }
+        if (size == properties.getMaxRows()) {
+            triggered("max_rows");
+        }
+        return PageRequest.of(pageable.getPageNumber(), size, pageable.getSort());
+    }
+
+    public <T> JPAQuery<T> timeout(JPAQuery<T> query) {
+        // Hibernate 는 힌트 값을 Integer 로만 받는다. Long 을 넘기면 쿼리 실행 시점에 ClassCastException 이 난다.
+        return query.setHint(TIMEOUT_HINT, Math.toIntExact(properties.getQueryTimeout().toMillis()));
+    }
+
+    public <T> T execute(Supplier<T> query) {
+        try {
+            return query.get();
+        } catch (QueryTimeoutException | org.springframework.dao.QueryTimeoutException e) {
+            //JPA 는 javax.persistence 의 예외를, JdbcTemplate 은 Spring 의 예외를 던진다.
+            triggered("timeout");
+            throw e;
+        }
+    }
+
+    public boolean isUnselective(MemberSearchCondition condition) {
+        if (hasText(condition.getUsername()) || hasText(condition.getTeamName())) {
+            return false;
+        }
+        if (condition.getAgeGoe() == null || condition.getAgeLoe() == null) {
+            return true;
+        }
+        return condition.getAgeLoe() - condition.getAgeGoe() > properties.getMaxAgeSpan();
+    }
+
+    private void triggered(String rule) {
+        meterRegistry.counter("member.search.guard", "rule", rule).increment();
+    }
+}
@@ -0,0 +1,30 @@
+package study.querydsl.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "member.search.guard")
+public class MemberSearchGuardProperties {
+
+    //한 번의 조회로 가져올 수 있는 최대 row 수
+    private int maxRows = 1000;
+
+    //JDBC statement 타임아웃
+    private Duration queryTimeout = Duration.ofSeconds(3);
+
+    //이름/팀 조건이 없고 나이 범위도 이보다 넓으면 선택도가 낮은 검색으로 본다.
+    private int maxAgeSpan = 10;
+
+    private Unselective unselective = Unselective.DOWNGRADE;
+
+    //DOWNGRADE 일 때 허용하는 row 수
+    private int downgradeRows = 100;
+
+    public enum Unselective {
+        ALLOW, DOWNGRADE, REJECT
+    }
+}
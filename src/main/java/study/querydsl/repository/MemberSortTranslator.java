@@ -0,0 +1,92 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * Spring Sort 를 회원 검색용 OrderSpecifier 로 바꾼다.
+ * 인덱스로 정렬을 끝낼 수 있는 조합만 허용하고 나머지는 filesort 가 나므로 거절한다.
+ * 페이지 경계가 흔들리지 않도록 마지막에 member.id 를 항상 붙인다.
+ */
+public final class MemberSortTranslator {
+
+    private static final String ID = "id";
+
+    private static final Map<String, ComparableExpressionBase<?>> SORTABLE = new HashMap<>();
+
+    //Member 의 인덱스 컬럼 순서와 맞춘다. (마지막 member_id 는 tiebreak 로 자동으로 붙는다)
+    private static final List<List<String>> INDEXED_ORDERS = Arrays.asList(
+            Collections.singletonList(ID),
+            Collections.singletonList("teamId"),
+            Arrays.asList("username", "age"),
+            Collections.singletonList("age"));
+
+    static {
+        SORTABLE.put(ID, member.id);
+        SORTABLE.put("username", member.username);
+        SORTABLE.put("age", member.age);
+        //team 을 join 하지 않고 member.team_id 컬럼으로 정렬한다.
+        SORTABLE.put("teamId", member.team.id);
+    }
+
+    private MemberSortTranslator() {
+    }
+
+    public static OrderSpecifier<?>[] orderBy(Sort sort) {
+        List<String> properties = new ArrayList<>();
+        Sort.Direction direction = null;
+
+        for (Sort.Order order : sort) {
+            if (!SORTABLE.containsKey(order.getProperty())) {
+                throw new UnsupportedSortException(
+                        "정렬할 수 없는 필드입니다: " + order.getProperty() + " (가능: " + SORTABLE.keySet() + ")");
+            }
+            if (direction != null && direction != order.getDirection()) {
+                throw new UnsupportedSortException("정렬 방향은 모두 같아야 합니다: " + sort);
+            }
+            direction = order.getDirection();
+            properties.add(order.getProperty());
+        }
+
+        if (direction == null) {
+            direction = Sort.Direction.ASC;
+        }
+        if (properties.isEmpty() || !ID.equals(properties.get(properties.size() - 1))) {
+            properties.add(ID);
+        }
+        if (!isIndexed(properties.subList(0, properties.size() - 1))) {
+            throw new UnsupportedSortException("인덱스로 처리할 수 없는 정렬 조합입니다: " + sort);
+        }
+
+        Order querydslOrder = direction.isAscending() ? Order.ASC : Order.DESC;
+        OrderSpecifier<?>[] specifiers = new OrderSpecifier<?>[properties.size()];
+        for (int i = 0; i < properties.size(); i++) {
+            specifiers[i] = new OrderSpecifier<>(querydslOrder, SORTABLE.get(properties.get(i)));
+        }
+        return specifiers;
+    }
+
+    //id 를 뺀 나머지가 어떤 인덱스 컬럼 순서의 앞부분과 같으면 된다.
+    private static boolean isIndexed(List<String> properties) {
+        if (properties.isEmpty()) {
+            return true;
+        }
+        for (List<String> indexed : INDEXED_ORDERS) {
+            if (indexed.size() >= properties.size() && indexed.subList(0, properties.size()).equals(properties)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
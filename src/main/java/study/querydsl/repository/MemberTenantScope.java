@@ -0,0 +1,36 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchConditionPredicates;
+import study.querydsl.tenant.TenantContext;
+
+import static study.querydsl.entity.QMember.member;
+
+/**
+ * 회원 조회에 붙이는 tenant 조건. 모든 조회는 현재 tenant 의 회원만 본다.
+ * 인덱스가 tenant_id 로 시작하므로 항상 첫 조건이 된다.
+ */
+final class MemberTenantScope {
+
+    private MemberTenantScope() {
+    }
+
+    static BooleanExpression tenantEq() {
+        return tenantEq(TenantContext.current());
+    }
+
+    //TenantContext 는 스레드에 있으므로 다른 스레드에서 읽을 때는 tenant 를 넘겨받는다.
+    static BooleanExpression tenantEq(String tenantId) {
+        return member.tenantId.eq(tenantId);
+    }
+
+    static Predicate[] where(MemberSearchCondition condition) {
+        Predicate[] predicates = MemberSearchConditionPredicates.of(condition);
+        Predicate[] where = new Predicate[predicates.length + 1];
+        where[0] = tenantEq();
+        System.arraycopy(predicates, 0, where, 1, predicates.length);
+        return where;
+    }
+}
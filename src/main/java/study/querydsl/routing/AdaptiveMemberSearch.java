@@ -0,0 +1,162 @@
+package study.querydsl.routing;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.SearchShape;
+import study.querydsl.repository.MemberNativeSearch;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.snapshot.MemberSnapshotService;
+import study.querydsl.support.DataVersion;
+import study.querydsl.tenant.TenantContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 검색(search)을 검색 모양별로 가장 빠른 전략에 보낸다. 결과는 어느 전략이든 같다.
+ * 같은 데이터 버전에서 같은 조건이 다시 오면 저장해 둔 결과(CACHED)를 돌려주고, 아니면 StrategySelector 가 고른다.
+ * 저장한 결과는 이 인스턴스에만 있으므로 버전은 TTL 캐시 없이 매번 DB 에서 읽는다. 다른 인스턴스의 커밋도 바로 반영된다.
+ * 저장하는 조건 수는 cacheEntries 로 제한하고, 넘치면 가장 오래 쓰이지 않은 조건부터 버린다.
+ * 스냅샷은 tenant 의 데이터 버전까지 반영됐을 때만 후보가 되고, includeArchived 는 JPA 만 처리한다.
+ * NATIVE/SNAPSHOT 은 조건을 직접 만들므로 모르는 조건 필드가 채워져 있으면 후보에서 빠진다.
+ *
+ * 결정은 member.search.route{shape, strategy, reason} 카운터로, 전략별 성능은
+ * member.search.strategy{shape, strategy} 타이머와 member.search.strategy.rows 로 남는다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "member.search.adaptive", name = "enabled", havingValue = "true")
+public class AdaptiveMemberSearch {
+
+    private final MemberRepository memberRepository;
+    private final MemberNativeSearch nativeSearch;
+    private final ObjectProvider<MemberSnapshotService> snapshotService;
+    private final DataVersion dataVersion;
+    private final AdaptiveSearchProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentMap<String, StrategySelector> selectors = new ConcurrentHashMap<>();
+    private final Map<List<Object>, Cached> cache;
+
+    public AdaptiveMemberSearch(MemberRepository memberRepository, MemberNativeSearch nativeSearch,
+                                ObjectProvider<MemberSnapshotService> snapshotService, DataVersion dataVersion,
+                                AdaptiveSearchProperties properties, MeterRegistry meterRegistry) {
+        this.memberRepository = memberRepository;
+        this.nativeSearch = nativeSearch;
+        this.snapshotService = snapshotService;
+        this.dataVersion = dataVersion;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<List<Object>, Cached>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, Cached> eldest) {
+                return size() > properties.getCacheEntries();
+            }
+        });
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        String tenantId = TenantContext.current();
+        String shape = SearchShape.of(condition);
+        //쿼리보다 먼저 읽어야 결과가 이 버전보다 오래된 것이 되지 않는다.
+        long version = dataVersion.read(tenantId);
+
+        List<Object> key = cacheKey(tenantId, condition);
+        Cached cached = cache.get(key);
+        if (cached != null && cached.version == version) {
+            routed(shape, SearchStrategy.CACHED, "HIT");
+            return cached.result;
+        }
+
+        StrategySelector selector = selectors.computeIfAbsent(shape, s -> new StrategySelector(
+                properties.getMinSamples(), properties.getProbeEvery(), properties.getAlpha()));
+        StrategySelector.Choice choice = selector.choose(candidates(condition, tenantId, version));
+        routed(shape, choice.strategy, choice.reason.name());
+
+        long start = System.nanoTime();
+        List<MemberTeamDto> result = run(choice.strategy, condition);
+        long elapsed = System.nanoTime() - start;
+
+        selector.record(choice.strategy, elapsed, result.size());
+        Timer.builder("member.search.strategy")
+                .tags("shape", shape, "strategy", choice.strategy.name())
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("member.search.strategy.rows")
+                .tags("shape", shape, "strategy", choice.strategy.name())
+                .register(meterRegistry)
+                .record(result.size());
+
+        List<MemberTeamDto> shared = Collections.unmodifiableList(result);
+        cache.put(key, new Cached(version, shared));
+        return shared;
+    }
+
+    private List<SearchStrategy> candidates(MemberSearchCondition condition, String tenantId, long version) {
+        List<SearchStrategy> candidates = new ArrayList<>(3);
+        candidates.add(SearchStrategy.JPA);
+        if (condition.isIncludeArchived() || !nativeSearch.supports(condition)) {
+            return candidates;
+        }
+        candidates.add(SearchStrategy.NATIVE);
+        MemberSnapshotService snapshots = snapshotService.getIfAvailable();
+        if (snapshots != null && snapshots.supports(condition) && snapshots.covers(tenantId, version)) {
+            candidates.add(SearchStrategy.SNAPSHOT);
+        }
+        return candidates;
+    }
+
+    private List<MemberTeamDto> run(SearchStrategy strategy, MemberSearchCondition condition) {
+        switch (strategy) {
+            case NATIVE:
+                return nativeSearch.search(condition);
+            case SNAPSHOT:
+                List<MemberTeamDto> result = snapshotService.getObject().search(condition);
+                if (result != null) {
+                    return result;
+                }
+                return memberRepository.search(condition);
+            default:
+                return memberRepository.search(condition);
+        }
+    }
+
+    private void routed(String shape, SearchStrategy strategy, String reason) {
+        meterRegistry.counter("member.search.route",
+                "shape", shape, "strategy", strategy.name(), "reason", reason).increment();
+    }
+
+    //condition 은 가변 객체라서 값만 복사해 key 로 쓴다.
+    private static List<Object> cacheKey(String tenantId, MemberSearchCondition condition) {
+        return Arrays.asList(
+                tenantId,
+                condition.getUsername(),
+                condition.getTeamName(),
+                condition.getAgeGoe(),
+                condition.getAgeLoe(),
+                condition.isIncludeArchived());
+    }
+
+    private static class Cached {
+
+        private final long version;
+        private final List<MemberTeamDto> result;
+
+        Cached(long version, List<MemberTeamDto> result) {
+            this.version = version;
+            this.result = result;
+        }
+    }
+}
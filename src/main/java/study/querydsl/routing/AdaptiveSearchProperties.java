@@ -0,0 +1,24 @@
+package study.querydsl.routing;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "member.search.adaptive")
+public class AdaptiveSearchProperties {
+
+    private boolean enabled = false;
+
+    //모양별로 전략마다 이만큼 실행해 본 뒤부터 빠른 쪽을 고른다.
+    private int minSamples = 5;
+
+    //모양별 요청 n 번에 한 번은 가장 오래 측정하지 않은 전략으로 다시 재본다. 데이터 분포가 바뀌어도 따라가기 위해서다.
+    private int probeEvery = 100;
+
+    //EWMA 가중치
+    private double alpha = 0.2;
+
+    //CACHED 가 보관하는 조건 수. 넘치면 가장 오래 쓰이지 않은 조건부터 버린다.
+    private int cacheEntries = 1000;
+}
@@ -0,0 +1,48 @@
+package study.querydsl.routing;
+
+/**
+ * 전략 하나의 지수 가중 이동 평균(EWMA) 지연 시간과 결과 크기.
+ * alpha 가 클수록 최근 측정에 빨리 따라간다.
+ */
+class LatencyStats {
+
+    private final double alpha;
+
+    private long samples;
+    private double latencyNanos;
+    private double rows;
+    //마지막으로 측정한 요청 번호 (StrategySelector 가 센다)
+    private long lastSampled;
+
+    LatencyStats(double alpha) {
+        this.alpha = alpha;
+    }
+
+    synchronized void record(long nanos, int resultRows, long sequence) {
+        if (samples == 0) {
+            latencyNanos = nanos;
+            rows = resultRows;
+        } else {
+            latencyNanos += alpha * (nanos - latencyNanos);
+            rows += alpha * (resultRows - rows);
+        }
+        samples++;
+        lastSampled = sequence;
+    }
+
+    synchronized long samples() {
+        return samples;
+    }
+
+    synchronized double latencyNanos() {
+        return latencyNanos;
+    }
+
+    synchronized double rows() {
+        return rows;
+    }
+
+    synchronized long lastSampled() {
+        return lastSampled;
+    }
+}
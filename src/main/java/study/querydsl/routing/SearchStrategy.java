@@ -0,0 +1,12 @@
+package study.querydsl.routing;
+
+public enum SearchStrategy {
+    //같은 데이터 버전에서 같은 조건으로 읽은 결과
+    CACHED,
+    //MemberRepositoryImpl.search (Querydsl DTO projection)
+    JPA,
+    //MemberNativeSearch
+    NATIVE,
+    //MemberSnapshotService (off-heap 스냅샷, member.snapshot.enabled 일 때만)
+    SNAPSHOT
+}
@@ -0,0 +1,79 @@
+package study.querydsl.routing;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 검색 모양 하나의 전략별 통계를 들고 다음 전략을 고른다.
+ * WARMUP: 표본이 minSamples 보다 적은 전략이 있으면 그것부터 실행한다.
+ * PROBE: probeEvery 번에 한 번은 가장 오래 측정하지 않은 전략을 실행한다.
+ * FASTEST: 나머지는 EWMA 지연 시간이 가장 짧은 전략이다.
+ */
+class StrategySelector {
+
+    enum Reason {
+        WARMUP, PROBE, FASTEST
+    }
+
+    static class Choice {
+
+        final SearchStrategy strategy;
+        final Reason reason;
+
+        Choice(SearchStrategy strategy, Reason reason) {
+            this.strategy = strategy;
+            this.reason = reason;
+        }
+    }
+
+    private final int minSamples;
+    private final int probeEvery;
+    private final double alpha;
+    private final Map<SearchStrategy, LatencyStats> stats = new EnumMap<>(SearchStrategy.class);
+    private final AtomicLong requests = new AtomicLong();
+
+    StrategySelector(int minSamples, int probeEvery, double alpha) {
+        this.minSamples = minSamples;
+        this.probeEvery = probeEvery;
+        this.alpha = alpha;
+    }
+
+    /**
+     * @param candidates 이번 요청에 쓸 수 있는 전략. 비어 있으면 안 된다.
+     */
+    Choice choose(List<SearchStrategy> candidates) {
+        long n = requests.incrementAndGet();
+        for (SearchStrategy candidate : candidates) {
+            if (statsOf(candidate).samples() < minSamples) {
+                return new Choice(candidate, Reason.WARMUP);
+            }
+        }
+        if (candidates.size() > 1 && probeEvery > 0 && n % probeEvery == 0) {
+            SearchStrategy stalest = candidates.get(0);
+            for (SearchStrategy candidate : candidates) {
+                if (statsOf(candidate).lastSampled() < statsOf(stalest).lastSampled()) {
+                    stalest = candidate;
+                }
+            }
+            return new Choice(stalest, Reason.PROBE);
+        }
+        SearchStrategy fastest = candidates.get(0);
+        for (SearchStrategy candidate : candidates) {
+            if (statsOf(candidate).latencyNanos() < statsOf(fastest).latencyNanos()) {
+                fastest = candidate;
+            }
+        }
+        return new Choice(fastest, Reason.FASTEST);
+    }
+
+    void record(SearchStrategy strategy, long nanos, int rows) {
+        //같은 밀리초 안의 측정도 순서가 갈리도록 요청 번호를 시각 대신 쓴다.
+        statsOf(strategy).record(nanos, rows, requests.get());
+    }
+
+    synchronized LatencyStats statsOf(SearchStrategy strategy) {
+        return stats.computeIfAbsent(strategy, s -> new LatencyStats(alpha));
+    }
+}
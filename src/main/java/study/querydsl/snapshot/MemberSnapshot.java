@@ -0,0 +1,383 @@
+package study.querydsl.snapshot;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 회원/팀을 컬럼 단위로 담은 불변 스냅샷. 모든 데이터는 하나의 off-heap 버퍼에 있고,
+ * 조회는 버퍼의 절대 위치 읽기만 하므로 여러 스레드가 락 없이 동시에 읽을 수 있다.
+ * 회원 수가 늘어도 힙에는 결과 DTO 외에 아무것도 만들지 않는다.
+ *
+ * <pre>
+ * header (64 byte)
+ * member  : id long[n] | age int[n] | teamIdx int[n] | tenantIdx int[n] | usernameOff int[n]
+ * index   : ageRows int[n] ((age, id) 순) | teamRows int[n] ((team, id) 순)
+ * team    : id long[t] | nameOff int[t] | teamStart int[t + 1] (teamRows 에서 팀별 시작 위치)
+ * tenant  : nameOff int[k]
+ * hash    : usernameSlots int[u] | teamNameSlots int[v] (row + 1, 0 은 빈 칸)
+ * heap    : [int 길이][UTF-8] 문자열들
+ * </pre>
+ *
+ * 회원 row 는 id 오름차순이므로 row 번호 순서가 곧 id 순서다.
+ */
+public final class MemberSnapshot {
+
+    static final int MAGIC = 0x4D534E50;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int NONE = -1;
+
+    private final ByteBuffer buffer;
+    private final long watermark;
+    private final int memberCount;
+    private final int teamCount;
+    private final int tenantCount;
+    private final int usernameSlots;
+    private final int teamNameSlots;
+
+    private final int memberIds;
+    private final int ages;
+    private final int teamIdx;
+    private final int tenantIdx;
+    private final int usernameOff;
+    private final int ageRows;
+    private final int teamRows;
+    private final int teamIds;
+    private final int teamNameOff;
+    private final int teamStart;
+    private final int tenantOff;
+    private final int usernameHash;
+    private final int teamNameHash;
+    private final int heap;
+
+    private MemberSnapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.watermark = buffer.getLong(8);
+        this.memberCount = buffer.getInt(16);
+        this.teamCount = buffer.getInt(20);
+        this.tenantCount = buffer.getInt(24);
+        this.usernameSlots = buffer.getInt(28);
+        this.teamNameSlots = buffer.getInt(32);
+
+        int n = memberCount;
+        int t = teamCount;
+        this.memberIds = HEADER_SIZE;
+        this.ages = memberIds + 8 * n;
+        this.teamIdx = ages + 4 * n;
+        this.tenantIdx = teamIdx + 4 * n;
+        this.usernameOff = tenantIdx + 4 * n;
+        this.ageRows = usernameOff + 4 * n;
+        this.teamRows = ageRows + 4 * n;
+        this.teamIds = teamRows + 4 * n;
+        this.teamNameOff = teamIds + 8 * t;
+        this.teamStart = teamNameOff + 4 * t;
+        this.tenantOff = teamStart + 4 * (t + 1);
+        this.usernameHash = tenantOff + 4 * tenantCount;
+        this.teamNameHash = usernameHash + 4 * usernameSlots;
+        this.heap = teamNameHash + 4 * teamNameSlots;
+    }
+
+    /**
+     * 직렬화된 스냅샷 버퍼를 감싼다. 버퍼는 복사하지 않는다.
+     */
+    public static MemberSnapshot wrap(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("회원 스냅샷 형식이 아닙니다.");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalArgumentException("지원하지 않는 스냅샷 버전입니다: " + buffer.getInt(4));
+        }
+        MemberSnapshot snapshot = new MemberSnapshot(buffer);
+        if (snapshot.heap + buffer.getInt(36) != buffer.capacity()) {
+            throw new IllegalArgumentException("스냅샷 크기가 맞지 않습니다.");
+        }
+        return snapshot;
+    }
+
+    /**
+     * 스냅샷을 만들 때 반영된 마지막 변경 이력 seq
+     */
+    public long watermark() {
+        return watermark;
+    }
+
+    public int memberCount() {
+        return memberCount;
+    }
+
+    public int teamCount() {
+        return teamCount;
+    }
+
+    public int sizeInBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * 읽기 전용 사본. 파일로 저장할 때 쓴다.
+     */
+    public ByteBuffer buffer() {
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * 회원 검색과 같은 조건으로 tenant 의 회원을 id 순서로 최대 limit 건 찾는다.
+     * 이름 -> 팀 이름 -> 나이 범위 순서로 색인을 골라 후보를 좁히고 나머지 조건은 걸러낸다.
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition condition, String tenantId, int limit) {
+        int tenant = tenantIndexOf(tenantId);
+        if (tenant == NONE || limit <= 0) {
+            return Collections.emptyList();
+        }
+        byte[] username = hasText(condition.getUsername()) ? utf8(condition.getUsername()) : null;
+        int[] teams = hasText(condition.getTeamName()) ? teamsNamed(utf8(condition.getTeamName())) : null;
+        int ageGoe = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+        int ageLoe = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+        if ((teams != null && teams.length == 0) || ageGoe > ageLoe) {
+            return Collections.emptyList();
+        }
+
+        Filter filter = new Filter(tenant, username, teams, ageGoe, ageLoe);
+        int[] rows;
+        if (username != null) {
+            rows = filter.apply(rowsNamed(username));
+        } else if (teams != null) {
+            rows = filter.apply(rowsOfTeams(teams));
+        } else if (condition.getAgeGoe() != null || condition.getAgeLoe() != null) {
+            rows = filter.apply(rowsAged(ageGoe, ageLoe));
+        } else {
+            return materialize(scan(filter, limit), limit);
+        }
+        //색인에서 나온 후보는 id 순서가 아니다.
+        Arrays.sort(rows);
+        return materialize(rows, limit);
+    }
+
+    //id 순서로 훑으므로 limit 만 채우면 멈춘다.
+    private int[] scan(Filter filter, int limit) {
+        IntList rows = new IntList();
+        for (int row = 0; row < memberCount && rows.size < limit; row++) {
+            if (filter.test(row)) {
+                rows.add(row);
+            }
+        }
+        return rows.toArray();
+    }
+
+    private IntList rowsNamed(byte[] username) {
+        IntList rows = new IntList();
+        int mask = usernameSlots - 1;
+        for (int slot = hash(username) & mask; ; slot = (slot + 1) & mask) {
+            int entry = buffer.getInt(usernameHash + 4 * slot);
+            if (entry == 0) {
+                return rows;
+            }
+            int row = entry - 1;
+            if (heapEquals(buffer.getInt(usernameOff + 4 * row), username)) {
+                rows.add(row);
+            }
+        }
+    }
+
+    private int[] teamsNamed(byte[] name) {
+        IntList teams = new IntList();
+        int mask = teamNameSlots - 1;
+        for (int slot = hash(name) & mask; ; slot = (slot + 1) & mask) {
+            int entry = buffer.getInt(teamNameHash + 4 * slot);
+            if (entry == 0) {
+                return teams.toArray();
+            }
+            int team = entry - 1;
+            if (heapEquals(buffer.getInt(teamNameOff + 4 * team), name)) {
+                teams.add(team);
+            }
+        }
+    }
+
+    private IntList rowsOfTeams(int[] teams) {
+        IntList rows = new IntList();
+        for (int team : teams) {
+            int from = buffer.getInt(teamStart + 4 * team);
+            int to = buffer.getInt(teamStart + 4 * (team + 1));
+            for (int i = from; i < to; i++) {
+                rows.add(buffer.getInt(teamRows + 4 * i));
+            }
+        }
+        return rows;
+    }
+
+    private IntList rowsAged(int ageGoe, int ageLoe) {
+        IntList rows = new IntList();
+        for (int i = lowerBound(ageGoe); i < memberCount; i++) {
+            int row = buffer.getInt(ageRows + 4 * i);
+            if (ageOf(row) > ageLoe) {
+                break;
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    //ageRows 에서 age >= ageGoe 인 첫 위치
+    private int lowerBound(int ageGoe) {
+        int low = 0;
+        int high = memberCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ageOf(buffer.getInt(ageRows + 4 * mid)) < ageGoe) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private List<MemberTeamDto> materialize(int[] rows, int limit) {
+        int size = Math.min(rows.length, limit);
+        List<MemberTeamDto> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int row = rows[i];
+            int team = buffer.getInt(teamIdx + 4 * row);
+            result.add(new MemberTeamDto(
+                    buffer.getLong(memberIds + 8 * row),
+                    heapString(buffer.getInt(usernameOff + 4 * row)),
+                    ageOf(row),
+                    team == NONE ? null : buffer.getLong(teamIds + 8 * team),
+                    team == NONE ? null : heapString(buffer.getInt(teamNameOff + 4 * team))));
+        }
+        return result;
+    }
+
+    private int ageOf(int row) {
+        return buffer.getInt(ages + 4 * row);
+    }
+
+    private int tenantIndexOf(String tenantId) {
+        byte[] bytes = utf8(tenantId);
+        for (int i = 0; i < tenantCount; i++) {
+            if (heapEquals(buffer.getInt(tenantOff + 4 * i), bytes)) {
+                return i;
+            }
+        }
+        return NONE;
+    }
+
+    private boolean heapEquals(int offset, byte[] value) {
+        if (offset == NONE) {
+            return false;
+        }
+        int at = heap + offset;
+        if (buffer.getInt(at) != value.length) {
+            return false;
+        }
+        for (int i = 0; i < value.length; i++) {
+            if (buffer.get(at + 4 + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String heapString(int offset) {
+        if (offset == NONE) {
+            return null;
+        }
+        int at = heap + offset;
+        byte[] bytes = new byte[buffer.getInt(at)];
+        ByteBuffer view = buffer.duplicate();
+        view.position(at + 4);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    //FNV-1a. 빌더와 조회가 같은 바이트로 계산해야 한다.
+    static int hash(byte[] value) {
+        int hash = 0x811C9DC5;
+        for (byte b : value) {
+            hash ^= b & 0xFF;
+            hash *= 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private class Filter {
+
+        private final int tenant;
+        private final byte[] username;
+        private final int[] teams;
+        private final int ageGoe;
+        private final int ageLoe;
+
+        Filter(int tenant, byte[] username, int[] teams, int ageGoe, int ageLoe) {
+            this.tenant = tenant;
+            this.username = username;
+            this.teams = teams;
+            this.ageGoe = ageGoe;
+            this.ageLoe = ageLoe;
+        }
+
+        int[] apply(IntList candidates) {
+            IntList rows = new IntList();
+            for (int i = 0; i < candidates.size; i++) {
+                if (test(candidates.values[i])) {
+                    rows.add(candidates.values[i]);
+                }
+            }
+            return rows.toArray();
+        }
+
+        boolean test(int row) {
+            if (buffer.getInt(tenantIdx + 4 * row) != tenant) {
+                return false;
+            }
+            int age = ageOf(row);
+            if (age < ageGoe || age > ageLoe) {
+                return false;
+            }
+            if (teams != null && !contains(teams, buffer.getInt(teamIdx + 4 * row))) {
+                return false;
+            }
+            return username == null || heapEquals(buffer.getInt(usernameOff + 4 * row), username);
+        }
+
+        private boolean contains(int[] values, int value) {
+            for (int v : values) {
+                if (v == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    static class IntList {
+
+        int[] values = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package study.querydsl.snapshot;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static study.querydsl.snapshot.MemberSnapshot.HEADER_SIZE;
+import static study.querydsl.snapshot.MemberSnapshot.NONE;
+
+/**
+ * 팀을 먼저, 회원은 id 오름차순으로 넣고 {@link #build(long)} 한다.
+ * 만드는 동안에만 힙에 배열을 두고, 결과는 direct 버퍼 하나로 옮긴다.
+ */
+public class MemberSnapshotBuilder {
+
+    private static final long NO_TEAM = Long.MIN_VALUE;
+
+    private final Heap heap = new Heap();
+    private final Map<Long, Integer> teamIndex = new HashMap<>();
+    private final Map<String, Integer> tenantIndex = new HashMap<>();
+
+    private long[] teamIds = new long[16];
+    private int[] teamNameOffsets = new int[16];
+    private int teamCount;
+
+    private long[] memberIds = new long[1024];
+    private int[] ages = new int[1024];
+    private long[] memberTeamIds = new long[1024];
+    private int[] tenants = new int[1024];
+    private int[] usernameOffsets = new int[1024];
+    private int memberCount;
+
+    public MemberSnapshotBuilder addTeam(long id, String name) {
+        if (teamCount == teamIds.length) {
+            teamIds = Arrays.copyOf(teamIds, teamCount * 2);
+            teamNameOffsets = Arrays.copyOf(teamNameOffsets, teamCount * 2);
+        }
+        teamIndex.put(id, teamCount);
+        teamIds[teamCount] = id;
+        teamNameOffsets[teamCount] = heap.add(name);
+        teamCount++;
+        return this;
+    }
+
+    public MemberSnapshotBuilder addMember(long id, String tenantId, String username, int age, Long teamId) {
+        if (memberCount > 0 && memberIds[memberCount - 1] >= id) {
+            throw new IllegalArgumentException("회원은 id 오름차순으로 넣어야 합니다: " + id);
+        }
+        if (memberCount == memberIds.length) {
+            int capacity = memberCount * 2;
+            memberIds = Arrays.copyOf(memberIds, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            memberTeamIds = Arrays.copyOf(memberTeamIds, capacity);
+            tenants = Arrays.copyOf(tenants, capacity);
+            usernameOffsets = Arrays.copyOf(usernameOffsets, capacity);
+        }
+        Integer tenant = tenantIndex.get(tenantId);
+        if (tenant == null) {
+            tenant = tenantIndex.size();
+            tenantIndex.put(tenantId, tenant);
+        }
+        memberIds[memberCount] = id;
+        ages[memberCount] = age;
+        memberTeamIds[memberCount] = teamId == null ? NO_TEAM : teamId;
+        tenants[memberCount] = tenant;
+        usernameOffsets[memberCount] = heap.add(username);
+        memberCount++;
+        return this;
+    }
+
+    public MemberSnapshot build(long watermark) {
+        int n = memberCount;
+        int t = teamCount;
+
+        int[] teamOfMember = new int[n];
+        int[] teamSizes = new int[t];
+        for (int row = 0; row < n; row++) {
+            Integer team = memberTeamIds[row] == NO_TEAM ? null : teamIndex.get(memberTeamIds[row]);
+            teamOfMember[row] = team == null ? NONE : team;
+            if (team != null) {
+                teamSizes[team]++;
+            }
+        }
+
+        int[] tenantOffsets = new int[tenantIndex.size()];
+        for (Map.Entry<String, Integer> entry : tenantIndex.entrySet()) {
+            tenantOffsets[entry.getValue()] = heap.add(entry.getKey());
+        }
+
+        int usernameSlots = slotsFor(n);
+        int teamNameSlots = slotsFor(t);
+        long size = HEADER_SIZE
+                + 8L * n + 4L * n * 6
+                + 8L * t + 4L * t + 4L * (t + 1)
+                + 4L * tenantOffsets.length
+                + 4L * usernameSlots + 4L * teamNameSlots
+                + heap.size;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("스냅샷이 2GB 를 넘습니다: " + size);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+        buffer.putInt(MemberSnapshot.MAGIC)
+                .putInt(MemberSnapshot.FORMAT_VERSION)
+                .putLong(watermark)
+                .putInt(n)
+                .putInt(t)
+                .putInt(tenantOffsets.length)
+                .putInt(usernameSlots)
+                .putInt(teamNameSlots)
+                .putInt(heap.size);
+        buffer.position(HEADER_SIZE);
+
+        for (int row = 0; row < n; row++) {
+            buffer.putLong(memberIds[row]);
+        }
+        putInts(buffer, ages, n);
+        putInts(buffer, teamOfMember, n);
+        putInts(buffer, tenants, n);
+        putInts(buffer, usernameOffsets, n);
+        putInts(buffer, ageRows(n), n);
+
+        int[] teamStart = new int[t + 1];
+        for (int team = 0; team < t; team++) {
+            teamStart[team + 1] = teamStart[team] + teamSizes[team];
+        }
+        //row 를 순서대로 채우므로 팀 안에서는 id 순서가 된다.
+        int[] teamRows = new int[n];
+        int[] cursor = Arrays.copyOf(teamStart, t);
+        for (int row = 0; row < n; row++) {
+            if (teamOfMember[row] != NONE) {
+                teamRows[cursor[teamOfMember[row]]++] = row;
+            }
+        }
+        putInts(buffer, teamRows, n);
+
+        for (int team = 0; team < t; team++) {
+            buffer.putLong(teamIds[team]);
+        }
+        putInts(buffer, teamNameOffsets, t);
+        putInts(buffer, teamStart, t + 1);
+        putInts(buffer, tenantOffsets, tenantOffsets.length);
+        putInts(buffer, hashSlots(usernameSlots, usernameOffsets, n), usernameSlots);
+        putInts(buffer, hashSlots(teamNameSlots, teamNameOffsets, t), teamNameSlots);
+        buffer.put(heap.bytes, 0, heap.size);
+
+        buffer.clear();
+        return MemberSnapshot.wrap(buffer);
+    }
+
+    //(age, row) 순서. row 는 0 이상이라 하위 32bit 에 그대로 넣어도 정렬이 맞는다.
+    private int[] ageRows(int n) {
+        long[] keys = new long[n];
+        for (int row = 0; row < n; row++) {
+            keys[row] = ((long) ages[row] << 32) | row;
+        }
+        Arrays.sort(keys);
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) {
+            rows[i] = (int) keys[i];
+        }
+        return rows;
+    }
+
+    private int[] hashSlots(int slots, int[] offsets, int count) {
+        int[] table = new int[slots];
+        int mask = slots - 1;
+        for (int i = 0; i < count; i++) {
+            if (offsets[i] == NONE) {
+                continue;
+            }
+            int slot = MemberSnapshot.hash(heap.bytesAt(offsets[i])) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+        return table;
+    }
+
+    //빈 칸이 항상 남도록 2배 이상, 2의 거듭제곱
+    private static int slotsFor(int count) {
+        int slots = 2;
+        while (slots < count * 2) {
+            slots <<= 1;
+        }
+        return slots;
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values, int count) {
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(values[i]);
+        }
+    }
+
+    //같은 문자열은 한 번만 저장한다. 팀 이름, tenant 처럼 반복되는 값이 많다.
+    private static class Heap {
+
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private byte[] bytes = new byte[4096];
+        private int size;
+
+        int add(String value) {
+            if (value == null) {
+                return NONE;
+            }
+            Integer offset = offsets.get(value);
+            if (offset != null) {
+                return offset;
+            }
+            byte[] encoded = MemberSnapshot.utf8(value);
+            ensure(4 + encoded.length);
+            int at = size;
+            bytes[size++] = (byte) (encoded.length >>> 24);
+            bytes[size++] = (byte) (encoded.length >>> 16);
+            bytes[size++] = (byte) (encoded.length >>> 8);
+            bytes[size++] = (byte) encoded.length;
+            System.arraycopy(encoded, 0, bytes, size, encoded.length);
+            size += encoded.length;
+            offsets.put(value, at);
+            return at;
+        }
+
+        byte[] bytesAt(int offset) {
+            int length = ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                    | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+            return Arrays.copyOfRange(bytes, offset + 4, offset + 4 + length);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
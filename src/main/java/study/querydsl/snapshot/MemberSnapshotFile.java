@@ -0,0 +1,51 @@
+package study.querydsl.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 스냅샷 버퍼를 그대로 파일에 쓰고, 읽을 때는 파일을 mmap 해서 복사 없이 스냅샷으로 쓴다.
+ * 임시 파일에 다 쓴 뒤 rename 하므로 쓰는 도중에 죽어도 이전 파일은 멀쩡하다.
+ */
+public final class MemberSnapshotFile {
+
+    private MemberSnapshotFile() {
+    }
+
+    public static void write(MemberSnapshot snapshot, Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = snapshot.buffer();
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 파일이 깨졌거나 형식이 다르면 IllegalArgumentException
+     */
+    public static MemberSnapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            //매핑은 채널을 닫아도 유지된다.
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return MemberSnapshot.wrap(mapped);
+        }
+    }
+}
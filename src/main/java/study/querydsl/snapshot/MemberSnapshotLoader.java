@@ -0,0 +1,46 @@
+package study.querydsl.snapshot;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.repository.MemberChangeLogRepository;
+
+/**
+ * DB 에서 회원/팀 전체를 읽어 스냅샷을 만든다. 엔티티를 만들지 않도록 JDBC 로 흘려 읽는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberSnapshotLoader {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final MemberChangeLogRepository changeLogRepository;
+    private final MemberSnapshotProperties properties;
+
+    public MemberSnapshot load() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        return tx.execute(status -> {
+            //watermark 를 먼저 읽는다. 이후에 들어온 변경은 스냅샷에 반영됐더라도 다음 갱신 때 다시 만든다.
+            long watermark = changeLogRepository.lastSeq();
+            MemberSnapshotBuilder builder = new MemberSnapshotBuilder();
+
+            JdbcTemplate template = new JdbcTemplate(jdbcTemplate.getDataSource());
+            template.setFetchSize(properties.getFetchSize());
+            template.query("select team_id, name from team",
+                    rs -> {
+                        builder.addTeam(rs.getLong("team_id"), rs.getString("name"));
+                    });
+            template.query("select member_id, tenant_id, username, age, team_id from member order by member_id",
+                    rs -> {
+                        long teamId = rs.getLong("team_id");
+                        Long team = rs.wasNull() ? null : teamId;
+                        builder.addMember(rs.getLong("member_id"), rs.getString("tenant_id"),
+                                rs.getString("username"), rs.getInt("age"), team);
+                    });
+            return builder.build(watermark);
+        });
+    }
+}
@@ -0,0 +1,26 @@
+package study.querydsl.snapshot;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "member.snapshot")
+public class MemberSnapshotProperties {
+
+    private boolean enabled = false;
+
+    //데이터 버전을 확인하는 주기
+    private Duration refreshInterval = Duration.ofSeconds(5);
+
+    //변경이 없어도 이 시간이 지나면 다시 만든다. 늦게 커밋된 변경(더 작은 seq)을 놓치지 않기 위해서다.
+    private Duration maxAge = Duration.ofMinutes(10);
+
+    //JDBC fetch size
+    private int fetchSize = 5000;
+
+    //다시 만들 때마다 저장하고, 재시작하면 DB 를 읽기 전에 이 파일부터 올린다. 비어 있으면 저장하지 않는다.
+    private String file;
+}
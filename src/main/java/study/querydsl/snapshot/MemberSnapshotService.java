@@ -0,0 +1,196 @@
+package study.querydsl.snapshot;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberSearchConditionPredicates;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberChangeLogRepository;
+import study.querydsl.repository.MemberNativeSearch;
+import study.querydsl.repository.MemberSearchGuard;
+import study.querydsl.support.DataVersion;
+import study.querydsl.tenant.TenantContext;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 스냅샷을 들고 있다가 tenant 데이터 버전이 올라가면 새로 만들어 통째로 바꾼다.
+ * 만들기 전에 읽은 tenant 별 데이터 버전을 같이 들고 있어서, 그 버전까지는 스냅샷이 DB 와 같다고 볼 수 있다.
+ * 조회는 현재 스냅샷만 읽고 JDBC 를 쓰지 않는다. 아직 만들어지기 전이면 null 을 돌려준다.
+ * 파일이 설정되어 있으면 시작할 때 저장된 스냅샷을 먼저 올려서 DB 에서 다시 만들기 전에도 바로 응답한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "member.snapshot", name = "enabled", havingValue = "true")
+public class MemberSnapshotService {
+
+    private final MemberSnapshotLoader loader;
+    private final MemberChangeLogRepository changeLogRepository;
+    private final MemberSearchGuard guard;
+    private final DataVersion dataVersion;
+    private final MemberSnapshotProperties properties;
+    private final Counter rebuilds;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "member-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile MemberSnapshot snapshot;
+    private volatile Map<String, Long> versions = Collections.emptyMap();
+    private volatile long builtAt;
+
+    public MemberSnapshotService(MemberSnapshotLoader loader, MemberChangeLogRepository changeLogRepository,
+                                 MemberSearchGuard guard, DataVersion dataVersion,
+                                 MemberSnapshotProperties properties, MeterRegistry meterRegistry) {
+        this.loader = loader;
+        this.changeLogRepository = changeLogRepository;
+        this.guard = guard;
+        this.dataVersion = dataVersion;
+        this.properties = properties;
+        this.rebuilds = meterRegistry.counter("member.snapshot.rebuilds");
+        Gauge.builder("member.snapshot.members", this, s -> s.snapshot == null ? 0 : s.snapshot.memberCount())
+                .register(meterRegistry);
+        Gauge.builder("member.snapshot.bytes", this, s -> s.snapshot == null ? 0 : s.snapshot.sizeInBytes())
+                .description("off-heap 사용량")
+                .register(meterRegistry);
+        Gauge.builder("member.snapshot.watermark", this, s -> s.snapshot == null ? 0 : s.snapshot.watermark())
+                .description("스냅샷에 반영된 마지막 변경 이력 seq")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        restore();
+        long interval = properties.getRefreshInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public MemberSnapshot current() {
+        return snapshot;
+    }
+
+    /**
+     * 현재 스냅샷이 tenant 의 version 까지 반영했는지. 버전을 모르는 스냅샷(복원 직후 밀린 것)은 false 다.
+     */
+    public boolean covers(String tenantId, long version) {
+        Map<String, Long> built = versions;
+        return snapshot != null && built.getOrDefault(tenantId, 0L) >= version;
+    }
+
+    //스냅샷은 MemberNativeSearch 와 같은 조건만 직접 거른다.
+    public boolean supports(MemberSearchCondition condition) {
+        return MemberNativeSearch.CONDITION_FIELDS.containsAll(MemberSearchConditionPredicates.conditionFields(condition));
+    }
+
+    /**
+     * @return 스냅샷이 아직 없으면 null
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        MemberSnapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+        int limit = guard.limitFor(condition, Long.MAX_VALUE);
+        return guard.truncate(current.search(condition, TenantContext.current(), limit + 1), limit);
+    }
+
+    /**
+     * 어느 tenant 든 데이터 버전이 스냅샷을 만들 때와 다르거나 maxAge 가 지났으면 다시 만든다.
+     * 버전을 데이터보다 먼저 읽으므로, 읽는 사이에 커밋된 변경은 스냅샷에 들어 있더라도 다음 갱신 때 다시 만든다.
+     */
+    public synchronized boolean refresh() {
+        MemberSnapshot current = snapshot;
+        boolean expired = System.currentTimeMillis() - builtAt > properties.getMaxAge().toMillis();
+        Map<String, Long> latest = dataVersion.readAll();
+        if (current != null && !expired && latest.equals(versions)) {
+            return false;
+        }
+        MemberSnapshot next = loader.load();
+        replace(next, latest);
+        rebuilds.increment();
+        persist(next);
+        return true;
+    }
+
+    //저장된 watermark 가 DB 의 마지막 seq 보다 크면 DB 가 새로 만들어진 것이므로 버린다.
+    //작거나 같으면 바로 쓰고, 밀린 변경은 첫 refresh 가 다시 만들어 반영한다.
+    //파일에는 데이터 버전이 없으므로 밀린 변경이 없을 때만 지금 버전을 반영한 것으로 본다.
+    private void restore() {
+        Path file = file();
+        if (file == null || !Files.exists(file)) {
+            return;
+        }
+        try {
+            MemberSnapshot restored = MemberSnapshotFile.read(file);
+            long lastSeq = changeLogRepository.lastSeq();
+            if (restored.watermark() > lastSeq) {
+                log.info("member snapshot file ignored: watermark={} is ahead of change log seq={}",
+                        restored.watermark(), lastSeq);
+                return;
+            }
+            snapshot = restored;
+            versions = restored.watermark() == lastSeq ? dataVersion.readAll() : Collections.emptyMap();
+            builtAt = Files.getLastModifiedTime(file).toMillis();
+            log.info("member snapshot restored from {}: members={}, watermark={}, behind={}",
+                    file, restored.memberCount(), restored.watermark(), lastSeq - restored.watermark());
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("member snapshot file {} could not be restored", file, e);
+        }
+    }
+
+    private void persist(MemberSnapshot next) {
+        Path file = file();
+        if (file == null) {
+            return;
+        }
+        try {
+            MemberSnapshotFile.write(next, file);
+        } catch (IOException e) {
+            log.warn("member snapshot could not be written to {}", file, e);
+        }
+    }
+
+    private Path file() {
+        String file = properties.getFile();
+        return file == null || file.isEmpty() ? null : Paths.get(file);
+    }
+
+    private void replace(MemberSnapshot next, Map<String, Long> builtVersions) {
+        snapshot = next;
+        versions = builtVersions;
+        builtAt = System.currentTimeMillis();
+        log.info("member snapshot replaced: members={}, bytes={}, watermark={}",
+                next.memberCount(), next.sizeInBytes(), next.watermark());
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            //다음 주기에 다시 시도한다. 그동안은 이전 스냅샷을 계속 쓴다.
+            log.warn("member snapshot refresh failed", e);
+        }
+    }
+}
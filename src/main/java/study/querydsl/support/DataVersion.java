@@ -0,0 +1,119 @@
+package study.querydsl.support;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * tenant 별 회원/팀 데이터 버전. data_version 의 tenant 행을 변경과 같은 트랜잭션 안에서 올리므로
+ * 커밋된 버전이 같으면 커밋된 데이터도 같다. (변경 이력의 IDENTITY seq 는 커밋 순서와 다를 수 있어서 쓰지 않는다.)
+ *
+ * 버전 행의 잠금은 트랜잭션이 첫 변경 이력을 남길 때부터 커밋까지 잡힌다. 그래서 같은 tenant 의 writer 는
+ * 이 구간(이력 기록 ~ 커밋)만 줄을 서고, 그 전에 하는 조회/계산과 다른 tenant 의 writer 는 기다리지 않는다.
+ * 이 잠금이 변경 피드의 seq 순서와 ETag 를 맞춰 주므로 일부러 남겨 둔 비용이다.
+ * (max(seq) 같은 잠금 없는 값은 늦게 커밋된 변경을 놓친다.)
+ * - 대량 변경(MemberBatchWriter, 벌크 update, 아카이브)은 작업 끝에 한 번 이력을 남기므로 커밋 직전에만 잠근다.
+ *   row 단위 충돌은 여전히 version 컬럼으로 잡으므로 writer 들이 처음부터 끝까지 직렬화되지는 않는다.
+ * - 엔티티 변경은 flush 때(보통 커밋 때) 리스너가 기록한다. 단 IDENTITY 키라 persist 는 바로 insert 되어 그때부터 잠근다.
+ *   팀 이동(changeTeam)도 update 로 flush 되므로 같은 tenant 의 팀 이동은 flush~커밋 구간에서 줄을 선다.
+ * - 한 트랜잭션에서 여러 tenant 를 잠그면 서로 반대 순서로 잠근 트랜잭션과 교착될 수 있다. 요청은 한 tenant 만 쓰고
+ *   여러 건을 한꺼번에 남기는 appendAll 은 정렬된 순서로 잠근다. 그 밖의 경우는 DB 가 교착을 감지해 한쪽을 롤백한다.
+ *
+ * 폴링 요청마다 DB 를 읽지 않도록 잠깐(TTL) 캐시하고, 이 인스턴스에서 커밋된 변경은 커밋 직후 캐시를 비운다.
+ * 다른 인스턴스의 변경은 최대 TTL 만큼 늦게 보인다.
+ */
+@Component
+public class DataVersion {
+
+    static final long TTL_MILLIS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentMap<String, Cached> versions = new ConcurrentHashMap<>();
+
+    public DataVersion(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * TTL 안에서는 캐시된 버전을 돌려준다. 다른 인스턴스의 변경은 최대 TTL 만큼 늦게 보인다.
+     */
+    public long current(String tenantId) {
+        Cached cached = versions.get(tenantId);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt < TTL_MILLIS) {
+            return cached.version;
+        }
+        return read(tenantId);
+    }
+
+    /**
+     * 캐시를 거치지 않고 DB 에서 읽는다. 저장해 둔 결과를 그대로 돌려줘도 되는지 판단할 때 쓴다. 읽은 값으로 캐시도 채운다.
+     */
+    public long read(String tenantId) {
+        long now = System.currentTimeMillis();
+        List<Long> rows = jdbcTemplate.queryForList(
+                "select version from data_version where tenant_id = ?", Long.class, tenantId);
+        long version = rows.isEmpty() ? 0L : rows.get(0);
+        versions.put(tenantId, new Cached(version, now));
+        return version;
+    }
+
+    /**
+     * 모든 tenant 의 커밋된 버전을 캐시 없이 읽는다. 전체를 다시 읽는 쪽(스냅샷)이 데이터보다 먼저 읽어 둔다.
+     */
+    public Map<String, Long> readAll() {
+        Map<String, Long> all = new HashMap<>();
+        jdbcTemplate.query("select tenant_id, version from data_version",
+                rs -> {
+                    all.put(rs.getString("tenant_id"), rs.getLong("version"));
+                });
+        return all;
+    }
+
+    /**
+     * 변경을 쓴 트랜잭션 안에서 호출한다. 행이 없으면 만든다.
+     * 트랜잭션 안이면 커밋된 뒤에 캐시를 비워야 커밋 전 데이터를 새 버전으로 캐시하는 일이 없다.
+     */
+    public void bump(String tenantId) {
+        if (jdbcTemplate.update("update data_version set version = version + 1 where tenant_id = ?", tenantId) == 0) {
+            try {
+                jdbcTemplate.update("insert into data_version (tenant_id, version) values (?, 1)", tenantId);
+            } catch (DuplicateKeyException e) {
+                //다른 트랜잭션이 먼저 만들었다.
+                jdbcTemplate.update("update data_version set version = version + 1 where tenant_id = ?", tenantId);
+            }
+        }
+        evictAfterCommit();
+    }
+
+    private void evictAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.clear();
+                }
+            });
+        } else {
+            versions.clear();
+        }
+    }
+
+    private static class Cached {
+
+        private final long version;
+        private final long loadedAt;
+
+        Cached(long version, long loadedAt) {
+            this.version = version;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package study.querydsl.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 같은 key 로 동시에 들어온 요청은 먼저 들어온 요청(leader)의 실행 결과를 함께 받는다.
+ * 결과는 실행이 끝나는 즉시 버려지므로 캐시가 아니라 in-flight 중복 제거만 한다.
+ * 공유되는 결과는 여러 스레드가 동시에 읽으므로 불변 객체(DTO, Page)여야 한다.
+ * 메트릭은 name 과 key 태그로 나뉜다. key 태그에는 key 자체가 아니라 값의 종류가 제한된 분류(검색 모양 등)를 넘긴다.
+ */
+public class SingleFlight<K, V> {
+
+    static final String ALL = "all";
+
+    private final ConcurrentMap<K, Flight<V>> flights = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Meters> meters = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final MeterRegistry registry;
+
+    public SingleFlight(String name, MeterRegistry registry) {
+        this.name = name;
+        this.registry = registry;
+        registry.gauge("singleflight.inflight", Tags.of("name", name), flights, ConcurrentMap::size);
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        return execute(key, ALL, loader);
+    }
+
+    /**
+     * @param dimension 메트릭의 key 태그. 종류가 끝없이 늘어나는 값(조건 값, id)을 넘기면 meter 도 끝없이 늘어난다.
+     */
+    public V execute(K key, String dimension, Supplier<V> loader) {
+        Meters meter = metersOf(dimension);
+        Flight<V> mine = new Flight<>();
+        Flight<V> inFlight = flights.putIfAbsent(key, mine);
+        if (inFlight != null) {
+            inFlight.waiters.incrementAndGet();
+            meter.shared.increment();
+            return inFlight.await();
+        }
+
+        meter.executions.increment();
+        try {
+            V result = loader.get();
+            mine.result.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            mine.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, mine);
+            meter.waiters.record(mine.waiters.get());
+        }
+    }
+
+    private Meters metersOf(String dimension) {
+        return meters.computeIfAbsent(dimension, d -> new Meters(Tags.of("name", name, "key", d), registry));
+    }
+
+    /**
+     * 현재 실행 중인 key 별 대기 요청 수
+     */
+    public int waitersOf(K key) {
+        Flight<V> flight = flights.get(key);
+        return flight == null ? 0 : flight.waiters.get();
+    }
+
+    private static class Meters {
+
+        private final Counter executions;
+        private final Counter shared;
+        private final DistributionSummary waiters;
+
+        Meters(Tags tags, MeterRegistry registry) {
+            this.executions = Counter.builder("singleflight.executions")
+                    .tags(tags)
+                    .description("실제로 실행된 요청 수")
+                    .register(registry);
+            this.shared = Counter.builder("singleflight.shared")
+                    .tags(tags)
+                    .description("다른 요청의 결과를 공유 받은 요청 수")
+                    .register(registry);
+            this.waiters = DistributionSummary.builder("singleflight.waiters")
+                    .tags(tags)
+                    .description("key 별 실행 한 번에 합류한 동시 요청 수")
+                    .register(registry);
+        }
+    }
+
+    private static class Flight<V> {
+
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        V await() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package study.querydsl.tenant;
+
+/**
+ * 현재 요청의 tenant 를 스레드에 보관한다. 요청이 끝나면 {@link TenantInterceptor} 가 지운다.
+ * 요청 밖(배치, 초기 데이터)에서는 설정하지 않으면 기본 tenant 로 동작한다.
+ */
+public final class TenantContext {
+
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static String current() {
+        String tenantId = CURRENT.get();
+        return tenantId != null ? tenantId : DEFAULT_TENANT;
+    }
+
+    public static void set(String tenantId) {
+        CURRENT.set(tenantId);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+}
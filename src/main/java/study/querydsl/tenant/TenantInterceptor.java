@@ -0,0 +1,48 @@
+package study.querydsl.tenant;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.regex.Pattern;
+
+/**
+ * X-Tenant-Id 헤더로 요청의 tenant 를 정한다. 헤더가 없으면 기본 tenant 다.
+ * 헤더는 클라이언트가 마음대로 넣을 수 있으므로, 인증한 게이트웨이가 채워 주는 구성(tenant.trusted-header)에서만 받는다.
+ */
+public class TenantInterceptor implements HandlerInterceptor {
+
+    public static final String HEADER = "X-Tenant-Id";
+
+    //tenant_id 컬럼 길이, 스키마 이름으로도 쓰이므로 글자를 제한한다.
+    private static final Pattern TENANT_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final boolean trustedHeader;
+
+    public TenantInterceptor(boolean trustedHeader) {
+        this.trustedHeader = trustedHeader;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String tenantId = request.getHeader(HEADER);
+        if (tenantId == null) {
+            return true;
+        }
+        if (!trustedHeader) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, HEADER + " 헤더는 신뢰하는 프록시를 거친 요청에서만 받습니다.");
+        }
+        if (!TENANT_ID.matcher(tenantId).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "잘못된 tenant 입니다: " + tenantId);
+        }
+        TenantContext.set(tenantId);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        TenantContext.clear();
+    }
+}
@@ -0,0 +1,14 @@
+package study.querydsl.tenant;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter @Setter
+@ConfigurationProperties(prefix = "tenant")
+public class TenantProperties {
+
+    //X-Tenant-Id 헤더를 믿을지. 인증을 마친 게이트웨이(trusted proxy)가 클라이언트의 헤더를 지우고 다시 채울 때만 켠다.
+    //꺼져 있으면 헤더가 온 요청을 거절한다.
+    private boolean trustedHeader = false;
+}
@@ -0,0 +1,45 @@
+package study.querydsl.tenant;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * 스키마가 따로 지정된 tenant 는 커넥션을 꺼낼 때 그 스키마로 바꾼다.
+ * Hikari 는 풀에 돌려받을 때 스키마를 원래대로 되돌린다.
+ */
+public class TenantSchemaDataSource extends DelegatingDataSource {
+
+    private final Map<String, String> schemas;
+
+    public TenantSchemaDataSource(DataSource target, Map<String, String> schemas) {
+        super(target);
+        this.schemas = schemas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(super.getConnection(username, password));
+    }
+
+    private Connection route(Connection connection) throws SQLException {
+        String schema = schemas.get(TenantContext.current());
+        if (schema != null) {
+            try {
+                connection.setSchema(schema);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+        }
+        return connection;
+    }
+}
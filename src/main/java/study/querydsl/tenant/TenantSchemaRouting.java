@@ -0,0 +1,45 @@
+package study.querydsl.tenant;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * tenant.schemas 에 적힌 큰 tenant 를 별도 스키마로 보낸다. 설정이 없으면 DataSource 를 감싸지 않는다.
+ *
+ * <pre>
+ * tenant:
+ *   schemas:
+ *     big-customer: tenant_big_customer
+ * </pre>
+ *
+ * 스키마와 테이블은 미리 만들어 두어야 한다. (ddl-auto 는 기본 스키마에만 적용된다)
+ * 스키마가 나뉘어도 tenant_id 조건은 그대로 걸리므로 데이터를 옮길 때 tenant_id 도 같이 옮긴다.
+ */
+@Component
+public class TenantSchemaRouting implements BeanPostProcessor, EnvironmentAware {
+
+    private Map<String, String> schemas = Collections.emptyMap();
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        schemas = Binder.get(environment)
+                .bind("tenant.schemas", Bindable.mapOf(String.class, String.class))
+                .orElse(Collections.emptyMap());
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource && !(bean instanceof TenantSchemaDataSource) && !schemas.isEmpty()) {
+            return new TenantSchemaDataSource((DataSource) bean, schemas);
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,71 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberRowsHttpMessageConverterTest {
+
+    static final Type MEMBER_ROWS = new ParameterizedTypeReference<List<MemberTeamDto>>() {}.getType();
+
+    MemberRowsHttpMessageConverter converter = new MemberRowsHttpMessageConverter();
+
+    @Test
+    public void roundTrip() throws Exception {
+        List<MemberTeamDto> rows = Arrays.asList(
+                new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDto(2L, "회원2", 20, 1L, "teamA"),
+                new MemberTeamDto(3L, null, 30, null, null),
+                new MemberTeamDto(4L, "member4", 40, 2L, "teamB"));
+
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(rows, MEMBER_ROWS, MemberRowsHttpMessageConverter.MEMBER_ROWS, output);
+        List<MemberTeamDto> read = converter.read(MEMBER_ROWS, null, new MockHttpInputMessage(output.getBodyAsBytes()));
+
+        assertThat(read).isEqualTo(rows);
+    }
+
+    @Test
+    public void sendsTeamNameOncePerTeam() throws Exception {
+        ByteArrayOutputStream once = new ByteArrayOutputStream();
+        MemberRowsHttpMessageConverter.encode(Arrays.asList(
+                new MemberTeamDto(1L, "m", 1, 1L, "a long team name")), once);
+        ByteArrayOutputStream twice = new ByteArrayOutputStream();
+        MemberRowsHttpMessageConverter.encode(Arrays.asList(
+                new MemberTeamDto(1L, "m", 1, 1L, "a long team name"),
+                new MemberTeamDto(2L, "m", 1, 1L, "a long team name")), twice);
+
+        //두 번째 row 는 flags + memberId + username + age + teamId 만 쓴다.
+        assertThat(twice.size() - once.size()).isEqualTo(1 + 8 + (4 + 1) + 4 + 8);
+    }
+
+    @Test
+    public void onlyWritesMemberTeamDtoLists() {
+        Type memberDtos = new ParameterizedTypeReference<List<MemberDto>>() {}.getType();
+
+        assertThat(converter.canWrite(MEMBER_ROWS, List.class, MemberRowsHttpMessageConverter.MEMBER_ROWS)).isTrue();
+        assertThat(converter.canWrite(memberDtos, List.class, MemberRowsHttpMessageConverter.MEMBER_ROWS)).isFalse();
+        assertThat(converter.canWrite(MEMBER_ROWS, List.class, MediaType.APPLICATION_JSON)).isFalse();
+    }
+
+    @Test
+    public void rejectsTruncatedBody() {
+        byte[] truncated = {0, 0, 0, 2, 1};
+
+        assertThatThrownBy(() -> converter.read(MEMBER_ROWS, null, new MockHttpInputMessage(truncated)))
+                .isInstanceOf(HttpMessageNotReadableException.class);
+    }
+}
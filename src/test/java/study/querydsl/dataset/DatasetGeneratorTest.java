@@ -0,0 +1,76 @@
+package study.querydsl.dataset;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//batch 마다 커밋하므로 @Transactional 을 붙이지 않는다.
+@SpringBootTest
+class DatasetGeneratorTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    DatasetGenerator datasetGenerator;
+    @Autowired
+    MemberRepository memberRepository;
+
+    @AfterEach
+    public void after() {
+        jdbcTemplate.update("delete from member_change_log");
+        jdbcTemplate.update("delete from member");
+        jdbcTemplate.update("delete from team");
+    }
+
+    @Test
+    public void writesReproducibleRowsInBatches() {
+        DatasetSpec spec = new DatasetSpec();
+        spec.setTeams(5);
+        spec.setMembers(2_500);
+        spec.setBatchSize(1000);
+
+        assertThat(datasetGenerator.generate(spec)).isEqualTo(2_500);
+        List<String> first = rows();
+        after();
+        datasetGenerator.generate(spec);
+
+        assertThat(first).hasSize(2_500);
+        assertThat(rows()).isEqualTo(first);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from team", Long.class)).isEqualTo(5);
+    }
+
+    //생성된 row 도 JPA 로 읽고 쓸 수 있어야 한다. id 는 같은 시퀀스라 새로 저장한 회원과 겹치지 않는다.
+    @Test
+    public void generatedRowsWorkWithJpa() {
+        DatasetSpec spec = new DatasetSpec();
+        spec.setMembers(100);
+        datasetGenerator.generate(spec);
+
+        Member saved = memberRepository.save(new Member("new", 20));
+        Long maxGenerated = jdbcTemplate.queryForObject(
+                "select max(member_id) from member where member_id <> ?", Long.class, saved.getId());
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(DatasetGenerator.teamName(0));
+
+        assertThat(saved.getId()).isGreaterThan(maxGenerated);
+        assertThat(memberRepository.search(condition)).isNotEmpty()
+                .extracting("teamName").containsOnly(DatasetGenerator.teamName(0));
+    }
+
+    //id 는 실행마다 다르므로 내용만 순서대로 비교한다.
+    private List<String> rows() {
+        return jdbcTemplate.queryForList(
+                "select m.username || '/' || m.age || '/' || coalesce(t.name, '-') || '/' || m.tenant_id" +
+                " from member m left join team t on t.team_id = m.team_id order by m.member_id", String.class);
+    }
+}
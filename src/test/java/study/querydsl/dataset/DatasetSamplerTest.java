@@ -0,0 +1,78 @@
+package study.querydsl.dataset;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DatasetSamplerTest {
+
+    @Test
+    public void sameSeedSameRows() {
+        DatasetSpec spec = new DatasetSpec();
+        List<String> first = sample(spec, 1000);
+        List<String> second = sample(spec, 1000);
+
+        spec.setSeed(7);
+        List<String> other = sample(spec, 1000);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(other).isNotEqualTo(first);
+    }
+
+    @Test
+    public void teamSizesFollowZipf() {
+        DatasetSpec spec = new DatasetSpec();
+        spec.setTeams(10);
+        spec.setTeamSkew(1.0);
+        spec.setNoTeamRatio(0);
+
+        int[] sizes = new int[10];
+        DatasetSampler sampler = new DatasetSampler(spec);
+        for (int i = 0; i < 100_000; i++) {
+            sizes[sampler.next().teamIndex]++;
+        }
+
+        //1/k 이므로 team0 은 team1 의 약 2 배, team9 의 약 10 배다.
+        assertThat((double) sizes[0] / sizes[1]).isBetween(1.8, 2.2);
+        assertThat((double) sizes[0] / sizes[9]).isBetween(8.5, 11.5);
+    }
+
+    @Test
+    public void agesStayInRange() {
+        DatasetSpec spec = new DatasetSpec();
+        spec.setAgeStdDev(100);
+        DatasetSampler sampler = new DatasetSampler(spec);
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(sampler.next().age).isBetween(spec.getMinAge(), spec.getMaxAge());
+        }
+    }
+
+    @Test
+    public void uniformWhenSkewIsZero() {
+        ZipfSampler uniform = new ZipfSampler(4, 0);
+        Random random = new Random(1);
+        int[] counts = new int[4];
+        for (int i = 0; i < 40_000; i++) {
+            counts[uniform.sample(random)]++;
+        }
+
+        for (int count : counts) {
+            assertThat(count).isBetween(9_500, 10_500);
+        }
+    }
+
+    private static List<String> sample(DatasetSpec spec, int rows) {
+        DatasetSampler sampler = new DatasetSampler(spec);
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            DatasetSampler.Row row = sampler.next();
+            result.add(row.teamIndex + "/" + row.username + "/" + row.age + "/" + row.inactiveSeconds);
+        }
+        return result;
+    }
+}
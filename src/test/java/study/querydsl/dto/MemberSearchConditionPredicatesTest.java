@@ -0,0 +1,37 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.types.ExpressionUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+class MemberSearchConditionPredicatesTest {
+
+    @Test
+    public void generatesSameConditionsAsHandWritten() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(20);
+
+        assertThat(ExpressionUtils.allOf(MemberSearchConditionPredicates.of(condition)).toString())
+                .isEqualTo(member.username.eq("member1")
+                        .and(team.name.eq("teamA"))
+                        .and(member.age.goe(10))
+                        .and(member.age.loe(20)).toString());
+    }
+
+    @Test
+    public void skipsEmptyValues() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("  ");
+        condition.setAgeLoe(20);
+
+        assertThat(MemberSearchConditionPredicates.of(condition))
+                .containsExactly(null, null, null, member.age.loe(20));
+        assertThat(MemberSearchConditionPredicates.conditionFields(condition)).containsExactly("ageLoe");
+    }
+}
@@ -3,6 +3,7 @@ package study.querydsl.entity;
 import com.querydsl.core.QueryFactory;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -64,6 +65,56 @@ class MemberTest {
     }
 
 
+    @Test
+    public void teamMembersStayLazy() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        em.clear();
+
+        Team findTeamA = em.find(Team.class, teamA.getId());
+        Team findTeamB = em.find(Team.class, teamB.getId());
+        Member findMember1 = em.find(Member.class, member1.getId());
+
+        assertThat(findTeamA.getMembers().size()).isEqualTo(2);
+        assertThat(findTeamA.getMembers().contains(findMember1)).isTrue();
+
+        findMember1.changeTeam(findTeamB);
+
+        assertThat(Hibernate.isInitialized(findTeamA.getMembers())).isFalse();
+        assertThat(Hibernate.isInitialized(findTeamB.getMembers())).isFalse();
+
+        em.flush();
+        assertThat(findTeamB.getMembers().size()).isEqualTo(1);
+    }
+
+    //flush 전에 목록을 읽어도 아직 로딩되지 않았던 팀으로 옮긴 회원이 보여야 한다.
+    @Test
+    public void queuedAddIsVisibleBeforeFlush() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.flush();
+        em.clear();
+
+        Team findTeamB = em.find(Team.class, teamB.getId());
+        Member findMember1 = em.find(Member.class, member1.getId());
+
+        findMember1.changeTeam(findTeamB);
+        assertThat(Hibernate.isInitialized(findTeamB.getMembers())).isFalse();
+
+        Hibernate.initialize(findTeamB.getMembers());
+        assertThat(findTeamB.getMembers()).containsExactly(findMember1);
+    }
+
     @Test
     public void selectDtoJpql() {
 
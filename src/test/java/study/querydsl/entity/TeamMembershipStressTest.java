@@ -0,0 +1,96 @@
+package study.querydsl.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 영속성 컨텍스트 밖에서 같은 팀 객체를 여러 스레드가 공유할 때 양방향 연관관계가 맞는지 본다.
+ * jcstress 처럼 짧은 경합을 여러 번 반복하고 끝난 뒤의 상태만 검사한다.
+ */
+class TeamMembershipStressTest {
+
+    static final int THREADS = 8;
+
+    @Test
+    public void parallelMovesKeepBothSidesConsistent() throws Exception {
+        List<Team> teams = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            teams.add(new Team("team" + i));
+        }
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            members.add(new Member("member" + i, i, teams.get(i % teams.size())));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 20_000; i++) {
+                    Member member = members.get(random.nextInt(members.size()));
+                    member.changeTeam(teams.get(random.nextInt(teams.size())));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        int total = 0;
+        for (Team team : teams) {
+            total += team.getMembers().size();
+            assertThat(team.getMembers()).doesNotHaveDuplicates();
+            assertThat(team.getMembers()).allMatch(m -> m.getTeam() == team);
+        }
+        assertThat(total).isEqualTo(members.size());
+    }
+
+    //한 회원을 두 스레드가 동시에 서로 다른 팀으로 옮긴다. 어느 쪽이 이기든 회원은 정확히 한 팀 목록에만 있어야 한다.
+    @Test
+    public void racingMovesOfOneMember() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < 5_000; round++) {
+                Team teamA = new Team("teamA");
+                Team teamB = new Team("teamB");
+                Team teamC = new Team("teamC");
+                Member member = new Member("member", 10, teamA);
+                CyclicBarrier start = new CyclicBarrier(2);
+
+                Future<?> toB = executor.submit(() -> {
+                    start.await();
+                    member.changeTeam(teamB);
+                    return null;
+                });
+                Future<?> toC = executor.submit(() -> {
+                    start.await();
+                    member.changeTeam(teamC);
+                    return null;
+                });
+                toB.get(5, TimeUnit.SECONDS);
+                toC.get(5, TimeUnit.SECONDS);
+
+                assertThat(teamA.getMembers()).isEmpty();
+                assertThat(teamB.getMembers().size() + teamC.getMembers().size()).isEqualTo(1);
+                assertThat(member.getTeam().getMembers()).containsExactly(member);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package study.querydsl.monitoring;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryStatsTest {
+
+    QueryStatsProperties properties = new QueryStatsProperties();
+    QueryStats queryStats = new QueryStats(properties);
+
+    @Test
+    public void normalizesLiteralsAndInLists() {
+        assertThat(SqlShape.of("select member0_.member_id from member member0_ where member0_.age >= 10 and username = 'kim'"))
+                .isEqualTo("select member0_.member_id from member member0_ where member0_.age >= ? and username = ?");
+        assertThat(SqlShape.of("select * from member where member_id in (?, ?, ?)"))
+                .isEqualTo(SqlShape.of("select * from member\n where member_id in (?)"));
+    }
+
+    @Test
+    public void groupsByShapeAndKeepsSlowest() {
+        properties.setSlowestSize(2);
+        properties.setIncludeValues(true);
+
+        queryStats.record("select * from member where age = 1", () -> "age = 1", 10);
+        queryStats.record("select * from member where age = 2", () -> "age = 2", 30);
+        queryStats.record("select * from team", () -> "team", 20);
+        queryStats.record("select * from team", () -> "team fast", 1);
+
+        assertThat(queryStats.shapes()).extracting("key")
+                .containsExactly("select * from member where age = ?", "select * from team");
+        assertThat(queryStats.shapes().get(0).getCount()).isEqualTo(2);
+        assertThat(queryStats.slowest()).extracting("sqlWithValues").containsExactly("age = 2", "team");
+    }
+
+    @Test
+    public void dropsBindValuesByDefault() {
+        queryStats.record("select * from member where username = ?", () -> "select * from member where username = 'kim'", 10);
+
+        assertThat(queryStats.slowest()).extracting("shape").containsExactly("select * from member where username = ?");
+        assertThat(queryStats.slowest()).extracting("sqlWithValues").containsOnlyNulls();
+    }
+
+    @Test
+    public void countsStatementsPerRequest() {
+        queryStats.beginRequest();
+        queryStats.record("select 1", () -> "select 1", 5);
+        queryStats.record("select 2", () -> "select 2", 5);
+
+        assertThat(queryStats.endRequest("GET /v1/members")).isEqualTo(2);
+        assertThat(queryStats.requests().get(0).getStatementsPerCount()).isEqualTo(2.0);
+
+        queryStats.record("select 3", () -> "select 3", 5);
+        assertThat(queryStats.requests().get(0).getCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,142 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberChangeBatch;
+import study.querydsl.dto.MemberMutation;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.MemberArchive;
+import study.querydsl.entity.MemberChangeType;
+import study.querydsl.entity.Team;
+import study.querydsl.tenant.TenantContext;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class MemberArchiveJobTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberArchiveJob memberArchiveJob;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberChangeLogRepository changeLogRepository;
+    @Autowired
+    MemberBatchWriter memberBatchWriter;
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+
+    Member active;
+    Member cold;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        active = new Member("member1", 10, teamA);
+        cold = new Member("member2", 20, teamA);
+        cold.setLastActiveAt(LocalDateTime.now().minusYears(1));
+        em.persist(active);
+        em.persist(cold);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void movesOnlyColdMembers() {
+        long start = changeLogRepository.lastSeq();
+
+        long archived = memberArchiveJob.archive(LocalDateTime.now().minusDays(30));
+
+        assertThat(archived).isEqualTo(1);
+        assertThat(em.find(Member.class, cold.getId())).isNull();
+        assertThat(em.find(Member.class, active.getId())).isNotNull();
+
+        MemberArchive archive = em.find(MemberArchive.class, cold.getId());
+        assertThat(archive.getUsername()).isEqualTo("member2");
+        assertThat(archive.getTeamId()).isEqualTo(cold.getTeam().getId());
+
+        MemberChangeBatch changes = changeLogRepository.findChangesSince(TenantContext.DEFAULT_TENANT, start, 10);
+        assertThat(changes.getChanges()).extracting("changeType").containsExactly(MemberChangeType.ARCHIVE);
+    }
+
+    @Test
+    public void updatedMembersAreNotArchived() {
+        Member renamed = coldMember("member3");
+        Member batched = coldMember("member4");
+        Member bulk = coldMember("member5");
+        Member stateless = coldMember("member6");
+        em.flush();
+        em.clear();
+
+        //엔티티 수정, JDBC batch, bulk update, StatelessSession 수정 모두 활동으로 본다.
+        em.find(Member.class, renamed.getId()).setUsername("renamed");
+        em.flush();
+        MemberMutation mutation = new MemberMutation(batched.getId(), batched.getVersion());
+        mutation.setAge(31);
+        memberBatchWriter.write(Arrays.asList(mutation));
+        memberRepository.bulkUpdate(member.id.eq(bulk.getId()), update -> update.set(member.age, 32));
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member6");
+        memberBulkRepository.update(condition, m -> m.setAge(33));
+        em.clear();
+
+        long archived = memberArchiveJob.archive(LocalDateTime.now().minusDays(30));
+
+        assertThat(archived).isEqualTo(1);
+        assertThat(em.find(Member.class, cold.getId())).isNull();
+        assertThat(em.find(Member.class, renamed.getId())).isNotNull();
+        assertThat(em.find(Member.class, batched.getId())).isNotNull();
+        assertThat(em.find(Member.class, bulk.getId())).isNotNull();
+        assertThat(em.find(Member.class, stateless.getId())).isNotNull();
+    }
+
+    private Member coldMember(String username) {
+        Member coldMember = new Member(username, 30);
+        coldMember.setLastActiveAt(LocalDateTime.now().minusYears(1));
+        em.persist(coldMember);
+        return coldMember;
+    }
+
+    @Test
+    public void searchIncludesArchiveOnlyWhenAsked() {
+        memberArchiveJob.archive(LocalDateTime.now().minusDays(30));
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        assertThat(memberRepository.search(condition)).extracting("username").containsExactly("member1");
+
+        condition.setIncludeArchived(true);
+        List<MemberTeamDto> result = memberRepository.search(condition);
+        assertThat(result).extracting("username").containsExactly("member1", "member2");
+        assertThat(result).extracting("teamName").containsOnly("teamA");
+
+        Page<MemberTeamDto> second = memberRepository.searchPageComplex(condition, PageRequest.of(1, 1));
+        assertThat(second.getContent()).extracting("username").containsExactly("member2");
+        assertThat(second.getTotalElements()).isEqualTo(2);
+
+        Page<Map<String, Object>> fields = memberRepository.searchPageFields(condition,
+                MemberField.parse("username,teamName"), PageRequest.of(1, 1));
+        assertThat(fields.getContent()).extracting(row -> row.get("username")).containsExactly("member2");
+        assertThat(fields.getContent()).extracting(row -> row.get("teamName")).containsExactly("teamA");
+        assertThat(fields.getTotalElements()).isEqualTo(2);
+    }
+}
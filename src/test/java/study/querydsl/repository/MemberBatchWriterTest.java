@@ -0,0 +1,151 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.BatchWriteResult;
+import study.querydsl.dto.MemberMutation;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.tenant.TenantContext;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class MemberBatchWriterTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    MemberBatchWriter memberBatchWriter;
+
+    Team teamB;
+    Member member1;
+    Member member2;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        member1 = new Member("member1", 10, teamA);
+        member2 = new Member("member2", 20, teamA);
+        em.persist(member1);
+        em.persist(member2);
+        em.flush();
+    }
+
+    @Test
+    public void retriesOnlyConflictingRows() {
+        MemberMutation changeAge = new MemberMutation(member1.getId(), member1.getVersion());
+        changeAge.setAge(11);
+        MemberMutation changeTeam = new MemberMutation(member2.getId(), member2.getVersion());
+        changeTeam.setTeamId(teamB.getId());
+
+        //다른 writer 가 member2 의 이름을 먼저 바꿨다.
+        jdbcTemplate.update("update member set username = 'renamed', version = version + 1 where member_id = ?",
+                member2.getId());
+
+        BatchWriteResult result = memberBatchWriter.write(Arrays.asList(changeAge, changeTeam), MemberMutation::rebase);
+
+        assertThat(result.getUpdated()).isEqualTo(2);
+        assertThat(result.getAttempts()).isEqualTo(2);
+        assertThat(result.hasConflicts()).isFalse();
+        //H2 는 건수를 돌려주므로 반영 여부를 모르는 row 가 없다.
+        assertThat(result.getUnknownIds()).isEmpty();
+
+        em.clear();
+        Member findMember2 = em.find(Member.class, member2.getId());
+        assertThat(findMember2.getUsername()).isEqualTo("renamed");
+        assertThat(findMember2.getTeam().getId()).isEqualTo(teamB.getId());
+        assertThat(findMember2.getVersion()).isEqualTo(member2.getVersion() + 2);
+    }
+
+    @Test
+    public void reportsConflictsByDefault() {
+        MemberMutation changeAge = new MemberMutation(member1.getId(), member1.getVersion());
+        changeAge.setAge(11);
+        MemberMutation changeTeam = new MemberMutation(member2.getId(), member2.getVersion());
+        changeTeam.setTeamId(teamB.getId());
+
+        jdbcTemplate.update("update member set username = 'renamed', version = version + 1 where member_id = ?",
+                member2.getId());
+
+        BatchWriteResult result = memberBatchWriter.write(Arrays.asList(changeAge, changeTeam));
+
+        assertThat(result.getUpdated()).isEqualTo(1);
+        assertThat(result.getAttempts()).isEqualTo(1);
+        assertThat(result.getConflictedIds()).containsExactly(member2.getId());
+
+        em.clear();
+        assertThat(em.find(Member.class, member2.getId()).getTeam().getName()).isEqualTo("teamA");
+    }
+
+    @Test
+    public void setToNullClearsTeam() {
+        MemberMutation leaveTeam = new MemberMutation(member1.getId(), member1.getVersion());
+        leaveTeam.setTeamId(null);
+
+        BatchWriteResult result = memberBatchWriter.write(Arrays.asList(leaveTeam));
+
+        assertThat(result.getUpdated()).isEqualTo(1);
+        em.clear();
+        Member findMember1 = em.find(Member.class, member1.getId());
+        assertThat(findMember1.getTeam()).isNull();
+        //set 하지 않은 필드는 그대로다.
+        assertThat(findMember1.getUsername()).isEqualTo("member1");
+        assertThat(findMember1.getAge()).isEqualTo(10);
+    }
+
+    @Test
+    public void rejectsTeamOfOtherTenant() {
+        TenantContext.set("other");
+        Team otherTeam;
+        try {
+            otherTeam = new Team("otherTeam");
+            em.persist(otherTeam);
+            em.flush();
+        } finally {
+            TenantContext.clear();
+        }
+        MemberMutation mutation = new MemberMutation(member1.getId(), member1.getVersion());
+        mutation.setTeamId(otherTeam.getId());
+
+        assertThatThrownBy(() -> memberBatchWriter.write(Arrays.asList(mutation)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void rejectsNullAge() {
+        MemberMutation mutation = new MemberMutation(member1.getId(), member1.getVersion());
+        mutation.setAge(null);
+
+        assertThatThrownBy(() -> memberBatchWriter.write(Arrays.asList(mutation)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void reportsConflictWhenRetryIsDeclined() {
+        MemberMutation mutation = new MemberMutation(member1.getId(), member1.getVersion());
+        mutation.setUsername("mine");
+
+        jdbcTemplate.update("update member set version = version + 1 where member_id = ?", member1.getId());
+
+        BatchWriteResult result = memberBatchWriter.write(Arrays.asList(mutation), (m, version) -> null);
+
+        assertThat(result.getUpdated()).isZero();
+        assertThat(result.getConflictedIds()).containsExactly(member1.getId());
+    }
+}
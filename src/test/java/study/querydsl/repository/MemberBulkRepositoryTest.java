@@ -0,0 +1,85 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.tenant.TenantContext;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberBulkRepositoryTest {
+
+    static final int MEMBERS = MemberBulkRepository.CHUNK_SIZE + 10;
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+    @Autowired
+    MemberChangeLogRepository changeLogRepository;
+
+    Team teamA;
+    Team teamB;
+    long start;
+
+    @BeforeEach
+    public void before() {
+        start = changeLogRepository.lastSeq();
+        teamA = new Team("teamA");
+        teamB = new Team("teamB");
+        memberBulkRepository.insertTeams(Arrays.asList(teamA, teamB));
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(new Member("member" + i, i % 50, i % 2 == 0 ? teamA : teamB));
+        }
+        memberBulkRepository.insertMembers(members);
+    }
+
+    @Test
+    public void insertsWithoutPersistenceContext() {
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member", Long.class)).isEqualTo(MEMBERS);
+        assertThat(changeLogRepository.findChangesSince(TenantContext.DEFAULT_TENANT, start, MEMBERS + 1).getChanges()).hasSize(MEMBERS);
+        assertThat(em.contains(teamA)).isFalse();
+    }
+
+    @Test
+    public void streamsMatchingMembersWithTeam() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        List<String> teamNames = new ArrayList<>();
+
+        long count = memberBulkRepository.forEach(condition, m -> teamNames.add(m.getTeam().getName()));
+
+        assertThat(count).isEqualTo(MEMBERS / 2);
+        assertThat(teamNames).containsOnly("teamA");
+    }
+
+    @Test
+    public void updatesInChunks() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(9);
+
+        long updated = memberBulkRepository.update(condition, m -> m.setAge(m.getAge() + 100));
+
+        Long expected = jdbcTemplate.queryForObject("select count(*) from member where age >= 100", Long.class);
+        assertThat(updated).isEqualTo(expected);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from member where age >= 100 and version = 1", Long.class)).isEqualTo(expected);
+    }
+}
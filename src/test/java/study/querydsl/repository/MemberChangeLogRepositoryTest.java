@@ -0,0 +1,71 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberChangeBatch;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.tenant.TenantContext;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.MemberChangeType.*;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class MemberChangeLogRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberChangeLogRepository changeLogRepository;
+
+    @Test
+    public void recordsSavesTeamChangesAndBulkUpdates() {
+        long start = changeLogRepository.lastSeq();
+
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 10, teamA);
+        memberRepository.save(member1);
+        em.flush();
+
+        member1.changeTeam(teamB);
+        em.flush();
+
+        memberRepository.bulkUpdate(member.age.lt(20), update -> update.set(member.age, member.age.add(1)));
+
+        MemberChangeBatch batch = changeLogRepository.findChangesSince(TenantContext.DEFAULT_TENANT, start, 10);
+
+        assertThat(batch.getChanges()).extracting("changeType").containsExactly(INSERT, UPDATE, BULK_UPDATE);
+        assertThat(batch.getChanges()).extracting("memberId").containsOnly(member1.getId());
+        assertThat(batch.getChanges()).extracting("teamId").containsExactly(teamA.getId(), teamB.getId(), teamB.getId());
+        assertThat(batch.isHasMore()).isFalse();
+        assertThat(batch.getLastSeq()).isEqualTo(changeLogRepository.lastSeq());
+    }
+
+    @Test
+    public void pagesBySeq() {
+        long start = changeLogRepository.lastSeq();
+        for (int i = 0; i < 3; i++) {
+            em.persist(new Member("member" + i, i));
+        }
+        em.flush();
+
+        MemberChangeBatch first = changeLogRepository.findChangesSince(TenantContext.DEFAULT_TENANT, start, 2);
+        MemberChangeBatch second = changeLogRepository.findChangesSince(TenantContext.DEFAULT_TENANT, first.getLastSeq(), 2);
+
+        assertThat(first.getChanges()).hasSize(2);
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(second.getChanges()).hasSize(1);
+        assertThat(second.isHasMore()).isFalse();
+    }
+}
@@ -0,0 +1,104 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.tenant.TenantContext;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+//구간마다 다른 커넥션으로 읽으므로 데이터를 커밋해야 보인다. 그래서 @Transactional 을 붙이지 않는다.
+@SpringBootTest
+class MemberPartitionScannerTest {
+
+    static final int MEMBERS = 250;
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MemberPartitionScanner scanner;
+
+    @BeforeEach
+    public void before() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            for (int i = 0; i < MEMBERS; i++) {
+                em.persist(new Member("member" + i, i % 100, i % 2 == 0 ? teamA : null));
+            }
+        });
+        //다른 tenant 의 회원은 스캔에 나오지 않아야 한다.
+        TenantContext.set("other");
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    em.persist(new Member("otherMember", 10)));
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    @AfterEach
+    public void after() {
+        jdbcTemplate.update("delete from member_change_log");
+        jdbcTemplate.update("delete from member");
+        jdbcTemplate.update("delete from team");
+    }
+
+    @Test
+    public void orderedScanDeliversEveryMemberInIdOrder() {
+        List<MemberTeamDto> rows = new ArrayList<>();
+
+        long total = scanner.scan(3, MemberPartitionScanner.Delivery.ORDERED, rows::addAll);
+
+        List<Long> ids = rows.stream().map(MemberTeamDto::getMemberId).collect(Collectors.toList());
+        assertThat(total).isEqualTo(MEMBERS);
+        assertThat(ids).hasSize(MEMBERS).isSorted();
+        assertThat(rows).filteredOn(row -> row.getTeamName() != null).hasSize(MEMBERS / 2);
+    }
+
+    @Test
+    public void unorderedScanDeliversEveryMemberOnce() {
+        List<Long> ids = new ArrayList<>();
+
+        scanner.scan(4, MemberPartitionScanner.Delivery.UNORDERED,
+                chunk -> chunk.forEach(row -> ids.add(row.getMemberId())));
+
+        assertThat(ids).hasSize(MEMBERS).doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void consumerFailureStopsScan() {
+        assertThatThrownBy(() -> scanner.scan(2, MemberPartitionScanner.Delivery.UNORDERED, chunk -> {
+            throw new IllegalStateException("consumer");
+        })).hasMessage("consumer");
+    }
+
+    @Test
+    public void emptyTableScansNothing() {
+        after();
+
+        assertThat(scanner.scan(MemberPartitionScanner.Delivery.ORDERED, chunk -> {
+            throw new AssertionError("호출되면 안 된다");
+        })).isZero();
+        assertThat(scanner.partition(TenantContext.DEFAULT_TENANT, 4)).isEqualTo(Collections.emptyList());
+    }
+}
@@ -0,0 +1,42 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Projections;
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.QMemberTeamDto;
+import study.querydsl.repository.MemberQueryShaper.TeamJoin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+class MemberQueryShaperTest {
+
+    @Test
+    public void noJoinWithoutTeamPaths() {
+        //member.team.id 는 member.team_id 컬럼이다.
+        assertThat(MemberQueryShaper.joinFor(
+                Projections.tuple(member.id, member.team.id),
+                member.age.goe(10), member.team.id.eq(1L), null))
+                .isEqualTo(TeamJoin.NONE);
+    }
+
+    @Test
+    public void leftJoinForTeamProjection() {
+        QMemberTeamDto projection = new QMemberTeamDto(member.id, member.username, member.age, team.id, team.name);
+
+        assertThat(MemberQueryShaper.joinFor(projection, member.age.goe(10))).isEqualTo(TeamJoin.LEFT);
+        //팀이 없는 회원도 조건에 맞을 수 있다.
+        assertThat(MemberQueryShaper.joinFor(member.count(), team.name.isNull())).isEqualTo(TeamJoin.LEFT);
+        assertThat(MemberQueryShaper.joinFor(member.count(), team.name.eq("teamA").or(member.age.eq(10))))
+                .isEqualTo(TeamJoin.LEFT);
+    }
+
+    @Test
+    public void innerJoinWhenFilterRejectsNullTeam() {
+        assertThat(MemberQueryShaper.joinFor(member.count(), team.name.eq("teamA"))).isEqualTo(TeamJoin.INNER);
+        assertThat(MemberQueryShaper.joinFor(member.count(),
+                new BooleanBuilder(member.age.goe(10)).and(team.name.startsWith("team"))))
+                .isEqualTo(TeamJoin.INNER);
+    }
+}
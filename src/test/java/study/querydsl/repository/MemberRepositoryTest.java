@@ -1,9 +1,14 @@
 package study.querydsl.repository;
 
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
@@ -11,10 +16,16 @@ import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -25,6 +36,10 @@ class MemberRepositoryTest {
     EntityManager em;
     @Autowired
     MemberRepository memberRepository;
+    @Autowired
+    JPAQueryFactory queryFactory;
+    @Autowired
+    MemberSearchGuard guard;
 
     @Test
     public void basicTest() {
@@ -66,5 +81,120 @@ class MemberRepositoryTest {
 
     }
 
+    @Test
+    public void searchPageComplexCountsByTeamName() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, i, i < 3 ? teamA : teamB));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //첫 페이지가 꽉 차야 count 쿼리가 실행된다.
+        Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2));
+
+        assertThat(result.getContent()).extracting("teamName").containsOnly("teamA");
+        assertThat(result.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    public void findTeamMembersByKeyset() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+        }
+
+        List<MemberTeamDto> first = memberRepository.findTeamMembers(teamA.getId(), null, 2);
+        List<MemberTeamDto> second = memberRepository.findTeamMembers(
+                teamA.getId(), first.get(first.size() - 1).getMemberId(), 2);
+
+        assertThat(first).extracting("username").containsExactly("member0", "member2");
+        assertThat(second).extracting("username").containsExactly("member4");
+        assertThat(second).extracting("teamName").containsOnly("teamA");
+    }
+
+    @Test
+    public void searchFieldsReturnsOnlyRequestedFields() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.persist(new Member("member2", 20, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        //teamName 을 고르지 않아도 팀 이름 조건은 걸린다.
+        List<Map<String, Object>> result = memberRepository.searchFields(condition, MemberField.parse("username, memberId,username"));
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0)).containsOnlyKeys("username", "memberId");
+        assertThat(result.get(0)).containsEntry("memberId", member1.getId());
+
+        List<Map<String, Object>> teamIds = memberRepository.searchFields(new MemberSearchCondition(), MemberField.parse("teamId"));
+        assertThat(teamIds).extracting(row -> row.get("teamId")).containsOnly(teamA.getId(), teamB.getId());
+
+        assertThatThrownBy(() -> MemberField.parse("username,password"))
+                .isInstanceOf(UnsupportedFieldException.class);
+    }
+
+    @Test
+    public void findAllByIdsSplitsLargeIdLists() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < MemberRepositoryImpl.IN_CHUNK_SIZE + 10; i++) {
+            Member member = new Member("member" + i, i);
+            em.persist(member);
+            ids.add(member.getId());
+        }
+        em.flush();
+        em.clear();
+
+        //중복과 없는 id 가 섞여 있어도 된다.
+        ids.add(ids.get(0));
+        ids.add(-1L);
+
+        List<Member> result = memberRepository.findAllByIds(ids);
+
+        assertThat(result).hasSize(MemberRepositoryImpl.IN_CHUNK_SIZE + 10);
+        assertThat(result).extracting("id").doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void guardedQueryRunsWithTimeoutHint() {
+        em.persist(new Member("member1", 10));
+        em.flush();
+
+        JPAQuery<Member> query = guard.timeout(queryFactory.selectFrom(member).where(member.username.eq("member1")));
+        Query jpaQuery = query.createQuery();
+        assertThat(jpaQuery.getHints().get("javax.persistence.query.timeout")).isInstanceOf(Integer.class);
+
+        List<Member> result = guard.execute(query::fetch);
+        assertThat(result).extracting("username").containsExactly("member1");
+    }
+
+    //읽기/쓰기 트랜잭션에 합류하면 readOnly 힌트를 주지 않으므로 고친 값이 flush 된다.
+    @Test
+    public void memberFromReadWriteTransactionIsWritable() {
+        Member saved = new Member("member1", 10);
+        em.persist(saved);
+        em.flush();
+        em.clear();
+
+        Member findMember = memberRepository.findAllByIds(Arrays.asList(saved.getId())).get(0);
+        assertThat(em.unwrap(Session.class).isReadOnly(findMember)).isFalse();
+        findMember.setAge(11);
+        em.flush();
+        em.clear();
+        assertThat(em.find(Member.class, saved.getId()).getAge()).isEqualTo(11);
+    }
 
-}
\ No newline at end of file
+}
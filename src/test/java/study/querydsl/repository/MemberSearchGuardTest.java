@@ -0,0 +1,92 @@
+package study.querydsl.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberSearchGuardTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    MemberSearchGuardProperties properties = new MemberSearchGuardProperties();
+    MemberSearchGuard guard = new MemberSearchGuard(properties, registry);
+
+    @Test
+    public void capsSelectiveSearchAtMaxRows() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+
+        assertThat(guard.limitFor(condition, 20)).isEqualTo(20);
+        int limit = guard.limitFor(condition, Long.MAX_VALUE);
+        assertThat(limit).isEqualTo(properties.getMaxRows());
+        //상한을 정하는 것만으로는 세지 않는다.
+        assertThat(registry.counter("member.search.guard", "rule", "max_rows").count()).isZero();
+
+        assertThat(guard.truncate(rows(limit), limit)).hasSize(limit);
+        assertThat(registry.counter("member.search.guard", "rule", "max_rows").count()).isZero();
+
+        assertThat(guard.truncate(rows(limit + 1), limit)).hasSize(limit);
+        assertThat(registry.counter("member.search.guard", "rule", "max_rows").count()).isEqualTo(1);
+    }
+
+    private static List<Integer> rows(int size) {
+        List<Integer> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rows.add(i);
+        }
+        return rows;
+    }
+
+    @Test
+    public void downgradesEmptyCondition() {
+        assertThat(guard.limitFor(new MemberSearchCondition(), Long.MAX_VALUE))
+                .isEqualTo(properties.getDowngradeRows());
+        assertThat(registry.counter("member.search.guard", "rule", "unselective_downgraded").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void shrinksOversizedPage() {
+        Pageable page = guard.pageFor(new MemberSearchCondition(), PageRequest.of(1, 500));
+
+        //offset 도 줄인 크기로 계산되어야 100~499 번째 행을 건너뛰지 않는다.
+        assertThat(page.getPageSize()).isEqualTo(properties.getDowngradeRows());
+        assertThat(page.getOffset()).isEqualTo(properties.getDowngradeRows());
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member1");
+        Pageable capped = guard.pageFor(condition, PageRequest.of(0, properties.getMaxRows() + 1));
+        assertThat(capped.getPageSize()).isEqualTo(properties.getMaxRows());
+        assertThat(registry.counter("member.search.guard", "rule", "max_rows").count()).isEqualTo(1);
+
+        Pageable small = PageRequest.of(0, 20);
+        assertThat(guard.pageFor(condition, small)).isSameAs(small);
+    }
+
+    @Test
+    public void narrowAgeRangeIsSelective() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(25);
+
+        assertThat(guard.isUnselective(condition)).isFalse();
+
+        condition.setAgeLoe(80);
+        assertThat(guard.isUnselective(condition)).isTrue();
+    }
+
+    @Test
+    public void rejectsUnselectiveWhenConfigured() {
+        properties.setUnselective(MemberSearchGuardProperties.Unselective.REJECT);
+
+        assertThatThrownBy(() -> guard.limitFor(new MemberSearchCondition(), 10))
+                .isInstanceOf(UnselectiveSearchException.class);
+        assertThat(registry.counter("member.search.guard", "rule", "unselective_rejected").count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,54 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+class MemberSortTranslatorTest {
+
+    @Test
+    public void defaultsToIdWhenUnsorted() {
+        OrderSpecifier<?>[] orders = MemberSortTranslator.orderBy(Sort.unsorted());
+
+        assertThat(orders).containsExactly(member.id.asc());
+    }
+
+    @Test
+    public void appendsIdTiebreakInSameDirection() {
+        OrderSpecifier<?>[] orders = MemberSortTranslator.orderBy(Sort.by(Sort.Direction.DESC, "username", "age"));
+
+        assertThat(orders).containsExactly(member.username.desc(), member.age.desc(), member.id.desc());
+    }
+
+    @Test
+    public void doesNotDuplicateExplicitId() {
+        OrderSpecifier<?>[] orders = MemberSortTranslator.orderBy(Sort.by("age", "id"));
+
+        assertThat(orders).containsExactly(member.age.asc(), member.id.asc());
+    }
+
+    @Test
+    public void rejectsUnknownField() {
+        assertThatThrownBy(() -> MemberSortTranslator.orderBy(Sort.by("team.name")))
+                .isInstanceOf(UnsupportedSortException.class);
+    }
+
+    @Test
+    public void rejectsSortNotCoveredByIndex() {
+        //(age, username) 순서의 인덱스는 없다.
+        assertThatThrownBy(() -> MemberSortTranslator.orderBy(Sort.by("age", "username")))
+                .isInstanceOf(UnsupportedSortException.class);
+    }
+
+    @Test
+    public void rejectsMixedDirections() {
+        Sort sort = Sort.by(Sort.Order.asc("username"), Sort.Order.desc("age"));
+
+        assertThatThrownBy(() -> MemberSortTranslator.orderBy(sort))
+                .isInstanceOf(UnsupportedSortException.class);
+    }
+}
@@ -0,0 +1,107 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.BatchWriteResult;
+import study.querydsl.dto.MemberMutation;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.tenant.TenantContext;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberTenantTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    MemberBatchWriter memberBatchWriter;
+
+    Member memberA;
+    Member memberB;
+
+    @BeforeEach
+    public void before() {
+        memberA = persist("tenantA");
+        memberB = persist("tenantB");
+        em.flush();
+        em.clear();
+    }
+
+    @AfterEach
+    public void after() {
+        TenantContext.clear();
+    }
+
+    @Test
+    public void searchSeesOnlyCurrentTenant() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("team");
+
+        TenantContext.set("tenantA");
+
+        assertThat(memberRepository.search(condition)).extracting("memberId").containsExactly(memberA.getId());
+        assertThat(memberRepository.searchPageComplex(condition, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(1);
+        assertThat(memberJpaRepository.search(condition)).extracting("memberId").containsExactly(memberA.getId());
+        assertThat(memberRepository.findAllByIds(Arrays.asList(memberA.getId(), memberB.getId())))
+                .extracting("id").containsExactly(memberA.getId());
+    }
+
+    @Test
+    public void entityFindersSeeOnlyCurrentTenant() {
+        TenantContext.set("tenantA");
+
+        assertThat(memberJpaRepository.findAll()).extracting("id").containsExactly(memberA.getId());
+        assertThat(memberJpaRepository.findAll_Querydsl()).extracting("id").containsExactly(memberA.getId());
+        assertThat(memberJpaRepository.findByUsername("member")).extracting("id").containsExactly(memberA.getId());
+        assertThat(memberJpaRepository.findByUsername_Querydsl("member")).extracting("id").containsExactly(memberA.getId());
+        assertThat(memberJpaRepository.findById(memberB.getId())).isEmpty();
+    }
+
+    @Test
+    public void batchWriterDoesNotTouchOtherTenant() {
+        TenantContext.set("tenantA");
+        MemberMutation mutation = new MemberMutation(memberB.getId(), memberB.getVersion());
+        mutation.setAge(99);
+
+        BatchWriteResult result = memberBatchWriter.write(Collections.singletonList(mutation));
+
+        assertThat(result.getUpdated()).isZero();
+        assertThat(result.getConflictedIds()).containsExactly(memberB.getId());
+    }
+
+    @Test
+    public void tenantIsAssignedOnPersist() {
+        assertThat(em.find(Member.class, memberA.getId()).getTenantId()).isEqualTo("tenantA");
+        assertThat(em.find(Member.class, memberB.getId()).getTeam().getTenantId()).isEqualTo("tenantB");
+    }
+
+    private Member persist(String tenantId) {
+        TenantContext.set(tenantId);
+        try {
+            Team team = new Team("team");
+            em.persist(team);
+            Member member = new Member("member", 20, team);
+            em.persist(member);
+            return member;
+        } finally {
+            TenantContext.clear();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package study.querydsl.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//스레드마다 다른 트랜잭션으로 같은 팀에 회원을 옮긴다. 커밋된 결과를 봐야 하므로 @Transactional 을 붙이지 않는다.
+@SpringBootTest
+class TeamMoveConcurrencyTest {
+
+    static final int THREADS = 8;
+    static final int MEMBERS_PER_THREAD = 20;
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Long teamAId;
+    Long teamBId;
+    List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < THREADS * MEMBERS_PER_THREAD; i++) {
+                Member member = new Member("member" + i, i, teamA);
+                em.persist(member);
+                memberIds.add(member.getId());
+            }
+            em.flush();
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        jdbcTemplate.update("delete from member_change_log");
+        jdbcTemplate.update("delete from member");
+        jdbcTemplate.update("delete from team");
+    }
+
+    //팀 목록 변경은 팀 version 을 올리지 않으므로 같은 팀으로 옮기는 writer 끼리 충돌하지 않는다.
+    @Test
+    public void parallelWritersMoveMembersWithoutConflicts() throws Exception {
+        long teamBVersion = teamVersion(teamBId);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            List<Long> mine = memberIds.subList(t * MEMBERS_PER_THREAD, (t + 1) * MEMBERS_PER_THREAD);
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (Long memberId : mine) {
+                    new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                            em.find(Member.class, memberId).changeTeam(em.find(Team.class, teamBId)));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member where team_id = ?", Long.class, teamBId))
+                .isEqualTo(memberIds.size());
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member where team_id = ?", Long.class, teamAId))
+                .isZero();
+        assertThat(teamVersion(teamBId)).isEqualTo(teamBVersion);
+    }
+
+    private long teamVersion(Long teamId) {
+        return jdbcTemplate.queryForObject("select version from team where team_id = ?", Long.class, teamId);
+    }
+}
@@ -0,0 +1,81 @@
+package study.querydsl.routing;
+
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.SearchShape;
+import study.querydsl.routing.StrategySelector.Choice;
+import study.querydsl.routing.StrategySelector.Reason;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StrategySelectorTest {
+
+    static final List<SearchStrategy> CANDIDATES = Arrays.asList(SearchStrategy.JPA, SearchStrategy.NATIVE);
+
+    StrategySelector selector = new StrategySelector(2, 10, 0.5);
+
+    @Test
+    public void warmsUpEveryCandidateFirst() {
+        assertThat(runOnce(1_000)).extracting(c -> c.strategy, c -> c.reason)
+                .containsExactly(SearchStrategy.JPA, Reason.WARMUP);
+        runOnce(1_000);
+        assertThat(runOnce(100)).extracting(c -> c.strategy, c -> c.reason)
+                .containsExactly(SearchStrategy.NATIVE, Reason.WARMUP);
+    }
+
+    @Test
+    public void picksFastestAndProbesPeriodically() {
+        int native_ = 0;
+        int probes = 0;
+        for (int i = 0; i < 100; i++) {
+            Choice choice = selector.choose(CANDIDATES);
+            selector.record(choice.strategy, choice.strategy == SearchStrategy.NATIVE ? 100 : 1_000, 10);
+            if (choice.reason == Reason.PROBE) {
+                probes++;
+                assertThat(choice.strategy).isEqualTo(SearchStrategy.JPA);
+            } else if (choice.reason == Reason.FASTEST) {
+                assertThat(choice.strategy).isEqualTo(SearchStrategy.NATIVE);
+                native_++;
+            }
+        }
+        assertThat(probes).isEqualTo(10);
+        assertThat(native_).isGreaterThan(80);
+    }
+
+    @Test
+    public void followsChangedLatency() {
+        for (int i = 0; i < 20; i++) {
+            Choice choice = selector.choose(CANDIDATES);
+            selector.record(choice.strategy, choice.strategy == SearchStrategy.NATIVE ? 100 : 1_000, 10);
+        }
+        //native 가 느려지면 다음 측정부터 JPA 로 돌아간다.
+        selector.record(SearchStrategy.NATIVE, 10_000, 10);
+        selector.record(SearchStrategy.NATIVE, 10_000, 10);
+
+        Choice choice = selector.choose(CANDIDATES);
+        assertThat(choice.reason).isIn(Reason.FASTEST, Reason.PROBE);
+        assertThat(choice.strategy).isEqualTo(SearchStrategy.JPA);
+    }
+
+    @Test
+    public void shapeIgnoresValues() {
+        MemberSearchCondition a = new MemberSearchCondition();
+        a.setUsername("member1");
+        a.setAgeGoe(10);
+        MemberSearchCondition b = new MemberSearchCondition();
+        b.setUsername("member2");
+        b.setAgeLoe(40);
+
+        assertThat(SearchShape.of(a)).isEqualTo("username+age").isEqualTo(SearchShape.of(b));
+        assertThat(SearchShape.of(new MemberSearchCondition())).isEqualTo("all");
+    }
+
+    private Choice runOnce(long nanos) {
+        Choice choice = selector.choose(CANDIDATES);
+        selector.record(choice.strategy, nanos, 10);
+        return choice;
+    }
+}
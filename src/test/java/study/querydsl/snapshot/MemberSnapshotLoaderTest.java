@@ -0,0 +1,47 @@
+package study.querydsl.snapshot;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberChangeLogRepository;
+import study.querydsl.tenant.TenantContext;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@Transactional
+class MemberSnapshotLoaderTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    MemberSnapshotLoader loader;
+    @Autowired
+    MemberChangeLogRepository changeLogRepository;
+
+    @Test
+    public void loadsMembersWithTeams() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20));
+        em.flush();
+
+        MemberSnapshot snapshot = loader.load();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        assertThat(snapshot.search(condition, TenantContext.DEFAULT_TENANT, 10))
+                .extracting("username", "teamName")
+                .containsExactly(
+                        tuple("member1", "teamA"),
+                        tuple("member2", null));
+        assertThat(snapshot.watermark()).isEqualTo(changeLogRepository.lastSeq());
+    }
+}
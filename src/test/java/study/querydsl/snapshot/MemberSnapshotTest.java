@@ -0,0 +1,113 @@
+package study.querydsl.snapshot;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberSnapshotTest {
+
+    MemberSnapshot snapshot;
+
+    @BeforeEach
+    public void before() {
+        MemberSnapshotBuilder builder = new MemberSnapshotBuilder()
+                .addTeam(1, "teamA")
+                .addTeam(2, "teamB");
+        for (int i = 0; i < 100; i++) {
+            String tenant = i % 10 == 0 ? "other" : "default";
+            Long teamId = i % 3 == 0 ? null : (long) (i % 3);
+            builder.addMember(100 + i, tenant, "member" + (i % 30), i, teamId);
+        }
+        snapshot = builder.build(42);
+    }
+
+    @Test
+    public void scansInIdOrderUpToLimit() {
+        assertThat(snapshot.search(new MemberSearchCondition(), "default", 3))
+                .extracting("memberId").containsExactly(101L, 102L, 103L);
+        assertThat(snapshot.watermark()).isEqualTo(42);
+    }
+
+    @Test
+    public void looksUpUsernameByHash() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member5");
+
+        assertThat(snapshot.search(condition, "default", 10))
+                .extracting("memberId").containsExactly(105L, 135L, 165L, 195L);
+    }
+
+    @Test
+    public void combinesTeamNameAndAgeRange() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(30);
+        condition.setAgeLoe(45);
+
+        assertThat(snapshot.search(condition, "default", 10))
+                .extracting("age").containsExactly(31, 34, 37, 43);
+        assertThat(snapshot.search(condition, "default", 10))
+                .extracting("teamName").containsOnly("teamA");
+    }
+
+    @Test
+    public void scansAgeRangeWithinTenant() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(30);
+        condition.setAgeLoe(45);
+
+        assertThat(snapshot.search(condition, "other", 10))
+                .extracting("memberId").containsExactly(130L, 140L);
+        assertThat(snapshot.search(condition, "unknown", 10)).isEmpty();
+    }
+
+    @Test
+    public void unknownTeamMatchesNothing() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("nope");
+
+        assertThat(snapshot.search(condition, "default", 10)).isEmpty();
+    }
+
+    @Test
+    public void wrapsSerializedBuffer() {
+        MemberSnapshot copy = MemberSnapshot.wrap(snapshot.buffer());
+
+        assertThat(copy.memberCount()).isEqualTo(100);
+        assertThat(copy.teamCount()).isEqualTo(2);
+        assertThatThrownBy(() -> new MemberSnapshotBuilder().addMember(2, "default", "a", 1, null)
+                .addMember(1, "default", "b", 1, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void roundTripsThroughMappedFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("member.snapshot");
+
+        MemberSnapshotFile.write(snapshot, file);
+        MemberSnapshot restored = MemberSnapshotFile.read(file);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member5");
+        assertThat(restored.watermark()).isEqualTo(42);
+        assertThat(restored.search(condition, "default", 10))
+                .isEqualTo(snapshot.search(condition, "default", 10));
+        assertThat(Files.size(file)).isEqualTo(snapshot.sizeInBytes());
+    }
+
+    @Test
+    public void rejectsCorruptFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("member.snapshot");
+        Files.write(file, new byte[128]);
+
+        assertThatThrownBy(() -> MemberSnapshotFile.read(file))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,161 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberChangeBatch;
+import study.querydsl.entity.MemberChangeType;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberChangeLogRepository;
+import study.querydsl.tenant.TenantContext;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//커밋 후에 캐시가 비워지는지 봐야 하므로 @Transactional 을 붙이지 않는다.
+@SpringBootTest
+class DataVersionTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    MemberChangeLogRepository changeLogRepository;
+    @Autowired
+    DataVersion dataVersion;
+
+    long start;
+
+    @BeforeEach
+    public void before() {
+        start = changeLogRepository.lastSeq();
+    }
+
+    @AfterEach
+    public void after() {
+        jdbcTemplate.update("delete from member_change_log where seq > ?", start);
+        jdbcTemplate.update("delete from team where name = 'dataVersionTeam'");
+    }
+
+    @Test
+    public void changesAfterCommitOnlyForThatTenant() {
+        long defaultVersion = dataVersion.current(TenantContext.DEFAULT_TENANT);
+        long otherVersion = dataVersion.current("other");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            changeLogRepository.append(TenantContext.DEFAULT_TENANT, 1L, null, MemberChangeType.UPDATE);
+            //커밋 전에는 캐시된 버전을 그대로 본다.
+            assertThat(dataVersion.current(TenantContext.DEFAULT_TENANT)).isEqualTo(defaultVersion);
+        });
+
+        assertThat(dataVersion.current(TenantContext.DEFAULT_TENANT)).isGreaterThan(defaultVersion);
+        assertThat(dataVersion.current("other")).isEqualTo(otherVersion);
+    }
+
+    @Test
+    public void rolledBackChangeKeepsVersion() {
+        long version = dataVersion.current("rollback");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            changeLogRepository.append("rollback", 1L, null, MemberChangeType.UPDATE);
+            status.setRollbackOnly();
+        });
+        assertThat(dataVersion.current("rollback")).isEqualTo(version);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                changeLogRepository.append("rollback", 1L, null, MemberChangeType.UPDATE));
+        //seq 와 달리 커밋된 변경 수만큼만 올라간다.
+        assertThat(dataVersion.current("rollback")).isEqualTo(version + 1);
+    }
+
+    //먼저 seq 를 받은 트랜잭션이 커밋되기 전에는 같은 tenant 의 다음 변경이 보이지 않는다.
+    @Test
+    public void feedNeverSkipsLateCommit() throws Exception {
+        //버전 행을 미리 만들어 두고 두 writer 가 같은 행에서 기다리게 한다.
+        dataVersion.bump("feed");
+        CountDownLatch appended = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        Future<?> slow = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            changeLogRepository.append("feed", 1L, null, MemberChangeType.UPDATE);
+            appended.countDown();
+            await(release);
+        }));
+        appended.await();
+        Future<?> fast = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                changeLogRepository.append("feed", 2L, null, MemberChangeType.UPDATE)));
+
+        Thread.sleep(200);
+        //같은 tenant 의 writer 는 앞선 트랜잭션이 커밋될 때까지 버전 행에서 기다린다.
+        assertThat(fast.isDone()).isFalse();
+        assertThat(changeLogRepository.findChangesSince("feed", start, 10).getChanges()).isEmpty();
+
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        fast.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        MemberChangeBatch batch = changeLogRepository.findChangesSince("feed", start, 10);
+        assertThat(batch.getChanges()).extracting("memberId").containsExactly(1L, 2L);
+    }
+
+    //버전 행은 tenant 별이므로 다른 tenant 의 writer 는 열린 트랜잭션을 기다리지 않는다.
+    @Test
+    public void otherTenantDoesNotWait() throws Exception {
+        CountDownLatch appended = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        Future<?> open = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            changeLogRepository.append("lockA", 1L, null, MemberChangeType.UPDATE);
+            appended.countDown();
+            await(release);
+        }));
+        appended.await();
+        try {
+            executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    changeLogRepository.append("lockB", 2L, null, MemberChangeType.UPDATE))).get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+        }
+        open.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertThat(changeLogRepository.findChangesSince("lockB", start, 10).getChanges()).extracting("memberId").containsExactly(2L);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void teamChangesBumpVersion() {
+        long version = dataVersion.current(TenantContext.DEFAULT_TENANT);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.persist(new Team("dataVersionTeam")));
+
+        assertThat(dataVersion.current(TenantContext.DEFAULT_TENANT)).isGreaterThan(version);
+        //회원 변경 피드에는 나오지 않는다.
+        assertThat(changeLogRepository.findChangesSince(TenantContext.DEFAULT_TENANT, start, 10).getChanges()).isEmpty();
+    }
+}
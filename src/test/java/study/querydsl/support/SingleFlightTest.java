@@ -0,0 +1,95 @@
+package study.querydsl.support;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    SingleFlight<String, Integer> singleFlight = new SingleFlight<>("test", registry);
+
+    @Test
+    public void sharesOneExecution() throws Exception {
+        int threads = 8;
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Integer>> results = new ArrayList<>();
+        results.add(executor.submit(() -> singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            await(release);
+            return 42;
+        })));
+        started.await();
+        for (int i = 1; i < threads; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("key", calls::incrementAndGet)));
+        }
+        while (singleFlight.waitersOf("key") < threads - 1) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        for (Future<Integer> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+        }
+        executor.shutdown();
+
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(registry.counter("singleflight.executions", "name", "test", "key", "all").count()).isEqualTo(1);
+        assertThat(registry.counter("singleflight.shared", "name", "test", "key", "all").count()).isEqualTo(threads - 1);
+        assertThat(registry.summary("singleflight.waiters", "name", "test", "key", "all").max()).isEqualTo(threads - 1);
+    }
+
+    @Test
+    public void tagsMetersByDimensionNotKey() {
+        for (int i = 0; i < 10; i++) {
+            singleFlight.execute("username=member" + i, "username", () -> 1);
+        }
+        singleFlight.execute("age=10", "age", () -> 1);
+
+        assertThat(registry.find("singleflight.executions").counters()).hasSize(2);
+        assertThat(registry.counter("singleflight.executions", "name", "test", "key", "username").count()).isEqualTo(10);
+    }
+
+    @Test
+    public void doesNotCacheAfterCompletion() {
+        AtomicInteger calls = new AtomicInteger();
+
+        singleFlight.execute("key", calls::incrementAndGet);
+        singleFlight.execute("key", calls::incrementAndGet);
+
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void propagatesFailure() {
+        assertThatThrownBy(() -> singleFlight.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(singleFlight.execute("key", () -> 1)).isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}